@@ -13,4 +13,4 @@ function advance_version () {
 }
 
 new_version="$(advance_version "$(mvn org.apache.maven.plugins:maven-help-plugin:3.2.0:evaluate -Dexpression=project.version -q -DforceStdout)")"
-mvn versions:set -DnewVersion="$new_version" -DgenerateBackupPoms=false
\ No newline at end of file
+mvn versions:set -Pbenchmarks -DnewVersion="$new_version" -DgenerateBackupPoms=false
\ No newline at end of file
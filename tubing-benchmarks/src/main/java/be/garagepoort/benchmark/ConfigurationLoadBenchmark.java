@@ -0,0 +1,80 @@
+package be.garagepoort.benchmark;
+
+import be.garagepoort.mcioc.configuration.files.ConfigurationCache;
+import be.garagepoort.mcioc.configuration.files.ConfigurationUtil;
+import be.garagepoort.mcioc.configuration.yaml.configuration.file.FileConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares parsing a configuration file of 5000 keys with loading it from the {@link ConfigurationCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class ConfigurationLoadBenchmark {
+
+    private static final String CONFIG_FILE = "config.yml";
+    private static final int SECTIONS = 500;
+
+    private Path dataFolder;
+    private StubTubingPlugin plugin;
+
+    @Setup(Level.Trial)
+    public void generateConfiguration() throws IOException {
+        dataFolder = Files.createTempDirectory("tubing-benchmark");
+        StringBuilder config = new StringBuilder("# Generated configuration\n\n");
+        for (int section = 0; section < SECTIONS; section++) {
+            config.append("section").append(section).append(":\n");
+            for (int key = 0; key < 5; key++) {
+                config.append("  message").append(key).append(": '&7Message ").append(section).append(' ').append(key).append("'\n");
+            }
+            config.append("  amount: ").append(section).append('\n');
+            config.append("  enabled: true\n");
+            config.append("  list:\n    - first\n    - second\n");
+        }
+        Files.write(dataFolder.resolve(CONFIG_FILE), config.toString().getBytes(StandardCharsets.UTF_8));
+        plugin = new StubTubingPlugin(dataFolder.toFile()) {
+        };
+        ConfigurationCache.load(plugin, CONFIG_FILE);
+    }
+
+    @Benchmark
+    public FileConfiguration parse() {
+        return ConfigurationUtil.loadConfiguration(plugin, CONFIG_FILE);
+    }
+
+    @Benchmark
+    public FileConfiguration cached() {
+        return ConfigurationCache.load(plugin, CONFIG_FILE);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteConfiguration() throws IOException {
+        try (Stream<Path> files = Files.walk(dataFolder)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package be.garagepoort.benchmark;
+
+import be.garagepoort.mcioc.IocContainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link IocContainer#init} for synthetic plugins of different sizes.
+ * <p>
+ * Build with {@code mvn -Pbenchmarks package} and run with {@code java -jar tubing-benchmarks/target/benchmarks.jar}.
+ * Use {@code -p beanIndex=false} or {@code -p parallel=false} to compare the container modes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class ContainerBootstrapBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    private int beanCount;
+
+    @Param({"true", "false"})
+    private boolean beanIndex;
+
+    @Param({"true", "false"})
+    private boolean parallel;
+
+    private SyntheticPlugin syntheticPlugin;
+    private StubTubingPlugin plugin;
+
+    @Setup(Level.Trial)
+    public void generatePlugin() throws IOException {
+        System.setProperty("tubing.beanindex", String.valueOf(beanIndex));
+        System.setProperty("tubing.parallel", String.valueOf(parallel));
+        syntheticPlugin = SyntheticPlugin.generate(beanCount);
+    }
+
+    @Setup(Level.Iteration)
+    public void createPlugin() throws IOException, ReflectiveOperationException {
+        plugin = syntheticPlugin.newPlugin();
+    }
+
+    @Benchmark
+    public IocContainer init() {
+        return plugin.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void deletePlugin() throws IOException {
+        syntheticPlugin.close();
+    }
+}
@@ -0,0 +1,58 @@
+package be.garagepoort.benchmark;
+
+import be.garagepoort.mcioc.IocContainer;
+import be.garagepoort.mcioc.TubingPlugin;
+
+import java.io.File;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Minimal {@link TubingPlugin} without a server platform. The generated plugins extend this class, so the container
+ * scans the package of the generated beans.
+ */
+public abstract class StubTubingPlugin implements TubingPlugin {
+
+    private static final Logger LOGGER = Logger.getLogger("tubing-benchmark");
+
+    static {
+        LOGGER.setLevel(Level.WARNING);
+    }
+
+    private final File dataFolder;
+    private IocContainer iocContainer;
+
+    protected StubTubingPlugin(File dataFolder) {
+        this.dataFolder = dataFolder;
+    }
+
+    public IocContainer start() {
+        iocContainer = initIocContainer();
+        return iocContainer;
+    }
+
+    @Override
+    public String getName() {
+        return "tubing-benchmark";
+    }
+
+    @Override
+    public ClassLoader getPluginClassLoader() {
+        return getClass().getClassLoader();
+    }
+
+    @Override
+    public File getDataFolder() {
+        return dataFolder;
+    }
+
+    @Override
+    public Logger getLogger() {
+        return LOGGER;
+    }
+
+    @Override
+    public IocContainer getIocContainer() {
+        return iocContainer;
+    }
+}
@@ -0,0 +1,198 @@
+package be.garagepoort.benchmark;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Generates and compiles a tubing plugin with the given number of beans.
+ * <p>
+ * Every bean implements its own interface and depends on two lower numbered beans through their interfaces, so the
+ * dependency graph is a DAG of logarithmic depth. Beans are grouped per {@value #GROUP_SIZE} and additionally mix in:
+ * <ul>
+ *     <li>{@code @ConfigProperty} fields read from the generated config.yml</li>
+ *     <li>{@code @IocMulti} lists of all beans of the previous group</li>
+ *     <li>{@code @IocBeanProvider} methods and beans depending on the provided types</li>
+ * </ul>
+ * The plugin is compiled with the tubing bean index processor, just like a real plugin.
+ * <p>
+ * Tubing is not relocated into the generated plugin, so the plugin is generated in the tubing package instead: the container
+ * then scans tubing and the generated beans, like it scans a plugin with tubing relocated into it, and not the benchmark
+ * classes. The config.yml is generated next to the classes, where the container finds it as the default configuration.
+ */
+public class SyntheticPlugin implements AutoCloseable {
+
+    static final String PLUGIN_PACKAGE = "be.garagepoort.mcioc";
+    static final String BEAN_PACKAGE = PLUGIN_PACKAGE + ".generated";
+    static final String PLUGIN_CLASS = PLUGIN_PACKAGE + ".GeneratedPlugin";
+    private static final int GROUP_SIZE = 50;
+
+    private final Path directory;
+    private final URLClassLoader classLoader;
+
+    private SyntheticPlugin(Path directory, URLClassLoader classLoader) {
+        this.directory = directory;
+        this.classLoader = classLoader;
+    }
+
+    public static SyntheticPlugin generate(int beanCount) throws IOException {
+        Path directory = Files.createTempDirectory("tubing-benchmark");
+        Path sources = Files.createDirectories(directory.resolve("src"));
+        Path classes = Files.createDirectories(directory.resolve("classes"));
+
+        List<File> sourceFiles = new ArrayList<>();
+        sourceFiles.add(write(sources, PLUGIN_CLASS, generatePlugin()));
+        int groups = (beanCount + GROUP_SIZE - 1) / GROUP_SIZE;
+        for (int group = 0; group < groups; group++) {
+            int first = group * GROUP_SIZE;
+            int last = Math.min(beanCount, first + GROUP_SIZE);
+            sourceFiles.add(write(sources, BEAN_PACKAGE + ".Group" + group, generateGroup(group, first, last)));
+        }
+        Files.write(classes.resolve("config.yml"), generateConfig(beanCount).getBytes(StandardCharsets.UTF_8));
+
+        compile(sourceFiles, classes);
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, SyntheticPlugin.class.getClassLoader());
+        return new SyntheticPlugin(directory, classLoader);
+    }
+
+    /**
+     * Creates a new plugin instance with a fresh data folder which already contains the config.yml, like a server which ran the plugin before.
+     */
+    public StubTubingPlugin newPlugin() throws IOException, ReflectiveOperationException {
+        File dataFolder = Files.createTempDirectory(directory, "data").toFile();
+        Files.copy(directory.resolve("classes").resolve("config.yml"), dataFolder.toPath().resolve("config.yml"));
+        return (StubTubingPlugin) classLoader.loadClass(PLUGIN_CLASS).getConstructor(File.class).newInstance(dataFolder);
+    }
+
+    @Override
+    public void close() throws IOException {
+        classLoader.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static String generatePlugin() {
+        return "package " + PLUGIN_PACKAGE + ";\n\n"
+            + "public class GeneratedPlugin extends " + StubTubingPlugin.class.getName() + " {\n"
+            + "    public GeneratedPlugin(java.io.File dataFolder) {\n"
+            + "        super(dataFolder);\n"
+            + "    }\n"
+            + "}\n";
+    }
+
+    private static String generateGroup(int group, int first, int last) {
+        StringBuilder source = new StringBuilder()
+            .append("package ").append(BEAN_PACKAGE).append(";\n\n")
+            .append("import be.garagepoort.mcioc.*;\n")
+            .append("import be.garagepoort.mcioc.configuration.ConfigProperty;\n")
+            .append("import java.util.List;\n\n")
+            .append("public class Group").append(group).append(" {\n\n")
+            .append("    public interface Handler").append(group).append(" {\n    }\n\n");
+
+        StringBuilder providers = new StringBuilder();
+        for (int i = first; i < last; i++) {
+            source.append("    public interface Api").append(i).append(" {\n    }\n\n");
+
+            List<String> parameters = new ArrayList<>();
+            if (i > 0) {
+                parameters.add(api(i / 2) + " dependency" + (i / 2));
+            }
+            if (i / 3 > 0 && i / 3 != i / 2) {
+                parameters.add(api(i / 3) + " dependency" + (i / 3));
+            }
+            if (i % 4 == 2 && group > 0) {
+                String handler = "Group" + (group - 1) + ".Handler" + (group - 1);
+                parameters.add("@IocMulti(" + handler + ".class) List<" + handler + "> handlers");
+            }
+            if (i % 4 == 0 && i > 0) {
+                parameters.add(provided(i - 1) + " provided" + (i - 1));
+            }
+
+            source.append("    @IocBean\n")
+                .append("    public static class Bean").append(i).append(" implements Api").append(i).append(", Handler").append(group).append(" {\n");
+            if (i % 4 == 1) {
+                source.append("        @ConfigProperty(\"beans.bean").append(i).append(".name\")\n")
+                    .append("        private String name;\n")
+                    .append("        @ConfigProperty(\"beans.bean").append(i).append(".amount\")\n")
+                    .append("        private int amount;\n\n");
+            }
+            source.append("        public Bean").append(i).append("(").append(String.join(", ", parameters)).append(") {\n")
+                .append("        }\n")
+                .append("    }\n\n");
+
+            if (i % 4 == 3) {
+                source.append("    public interface Provided").append(i).append(" {\n    }\n\n");
+                providers.append("        @IocBeanProvider\n")
+                    .append("        public static Provided").append(i).append(" provided").append(i).append("(Api").append(i).append(" api) {\n")
+                    .append("            return new Provided").append(i).append("() {\n            };\n")
+                    .append("        }\n\n");
+            }
+        }
+
+        if (providers.length() > 0) {
+            source.append("    @TubingConfiguration\n")
+                .append("    public static class Providers").append(group).append(" {\n\n")
+                .append(providers)
+                .append("    }\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    private static String generateConfig(int beanCount) {
+        StringBuilder config = new StringBuilder("beans:\n");
+        for (int i = 1; i < beanCount; i += 4) {
+            config.append("  bean").append(i).append(":\n")
+                .append("    name: bean-").append(i).append('\n')
+                .append("    amount: ").append(i).append('\n');
+        }
+        return config.toString();
+    }
+
+    private static String api(int bean) {
+        return "Group" + (bean / GROUP_SIZE) + ".Api" + bean;
+    }
+
+    private static String provided(int bean) {
+        return "Group" + (bean / GROUP_SIZE) + ".Provided" + bean;
+    }
+
+    private static File write(Path sources, String className, String source) throws IOException {
+        Path file = sources.resolve(className.replace('.', File.separatorChar) + ".java");
+        Files.createDirectories(file.getParent());
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+
+    private static void compile(List<File> sourceFiles, Path classes) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("The benchmarks compile the synthetic plugins at runtime and have to run on a JDK");
+        }
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-nowarn");
+        arguments.add("-classpath");
+        arguments.add(System.getProperty("java.class.path"));
+        arguments.add("-processor");
+        arguments.add("be.garagepoort.mcioc.processor.TubingBeanIndexProcessor");
+        arguments.add("-d");
+        arguments.add(classes.toString());
+        sourceFiles.forEach(f -> arguments.add(f.getPath()));
+
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        if (compiler.run(null, null, errors, arguments.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("Could not compile synthetic plugin:\n" + new String(errors.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -8,6 +8,8 @@ import be.garagepoort.mcioc.ReflectionUtils;
 import be.garagepoort.mcioc.TubingPlugin;
 import be.garagepoort.mcioc.configuration.ConfigurationLoader;
 import be.garagepoort.mcioc.load.InjectTubingPlugin;
+import be.garagepoort.mcioc.scope.PlayerScope;
+import be.garagepoort.mcioc.scope.PlayerScoped;
 import be.garagepoort.mcioc.tubingbukkit.common.ITubingBukkitUtil;
 import be.garagepoort.mcioc.tubinggui.actionquery.ActionQueryParser;
 import be.garagepoort.mcioc.tubinggui.actionquery.GuiActionQuery;
@@ -41,8 +43,8 @@ import static java.util.Arrays.stream;
 @IocBean
 public class GuiActionService {
     private final Map<String, GuiActionConfig> guiActions = new HashMap<>();
-    private final Map<UUID, TubingGui> inventories = new HashMap<>();
-    public final Map<UUID, Boolean> isOpeningInventory = new HashMap<>();
+    private final PlayerScoped<TubingGui> inventories;
+    public final Map<UUID, Boolean> isOpeningInventory;
     private final Map<Class<? extends Exception>, GuiExceptionHandler> exceptionHandlers = new HashMap<>();
 
     private final TubingPlugin tubingPlugin;
@@ -64,6 +66,7 @@ public class GuiActionService {
                             ITubingBukkitUtil tubingBukkitUtil,
                             InventoryMapper inventoryMapper,
                             TubingGuiStyleIdViewProvider tubingGuiStyleIdViewProvider, GuiHistoryStack guiHistoryStack,
+                            PlayerScope playerScope,
                             @IocMulti(GuiExceptionHandler.class) List<GuiExceptionHandler> providedExceptionHandlers) {
         this.tubingPlugin = tubingPlugin;
         this.configurationLoader = configurationLoader;
@@ -74,6 +77,8 @@ public class GuiActionService {
         this.inventoryMapper = inventoryMapper;
         this.tubingGuiStyleIdViewProvider = tubingGuiStyleIdViewProvider;
         this.guiHistoryStack = guiHistoryStack;
+        this.inventories = playerScope.create();
+        this.isOpeningInventory = playerScope.<Boolean>create().asMap();
         registerExceptionHandlers(providedExceptionHandlers);
     }
 
@@ -92,7 +97,7 @@ public class GuiActionService {
     }
 
     public Optional<TubingGui> getTubingGui(Player player) {
-        return Optional.ofNullable(inventories.get(player.getUniqueId()));
+        return inventories.find(player.getUniqueId());
     }
 
     public void registerExceptionHandler(Class<? extends Exception> clazz, GuiExceptionHandler guiExceptionHandler) {
@@ -290,7 +295,7 @@ public class GuiActionService {
     }
 
     public void loadGuiControllers(IocContainer iocContainer) {
-        List<Class<?>> typesAnnotatedWith = iocContainer.getReflections().getClassesWithAnnotation(GuiController.class).loadClasses();
+        List<Class<?>> typesAnnotatedWith = iocContainer.getClassIndex().getClassesWithAnnotation(GuiController.class);
         typesAnnotatedWith.forEach(this::loadGuiController);
     }
 
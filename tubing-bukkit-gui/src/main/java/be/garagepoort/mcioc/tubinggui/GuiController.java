@@ -14,4 +14,9 @@ public @interface GuiController {
     boolean priority() default false;
 
     Class multiproviderClass() default Object.class;
+
+    /**
+     * Lazy controllers are created when one of their actions is first executed.
+     */
+    boolean lazy() default false;
 }
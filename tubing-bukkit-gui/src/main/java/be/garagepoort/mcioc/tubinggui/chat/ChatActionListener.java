@@ -1,5 +1,6 @@
 package be.garagepoort.mcioc.tubinggui.chat;
 
+import be.garagepoort.mcioc.scope.PlayerScoped;
 import be.garagepoort.mcioc.tubingbukkit.annotations.IocBukkitListener;
 import be.garagepoort.mcioc.tubingbukkit.messaging.Messages;
 import org.bukkit.entity.Player;
@@ -8,8 +9,6 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
 
-import java.util.Map;
-import java.util.UUID;
 import java.util.function.Consumer;
 
 @IocBukkitListener
@@ -25,12 +24,12 @@ public class ChatActionListener implements Listener {
 
     @EventHandler(priority = EventPriority.LOWEST)
     public void onChat(AsyncPlayerChatEvent chatEvent) {
-        Map<UUID, Consumer<String>> actions = chatActionService.getActions();
+        PlayerScoped<Consumer<String>> actions = chatActionService.getActions();
         Player player = chatEvent.getPlayer();
-        if(!actions.containsKey(player.getUniqueId())) {
+        Consumer<String> chatAction = actions.get(player.getUniqueId());
+        if(chatAction == null) {
             return;
         }
-        Consumer<String> chatAction = actions.get(player.getUniqueId());
 
         try {
             chatAction.accept(chatEvent.getMessage());
@@ -1,14 +1,13 @@
 package be.garagepoort.mcioc.tubinggui.chat;
 
 import be.garagepoort.mcioc.IocBean;
+import be.garagepoort.mcioc.scope.PlayerScope;
+import be.garagepoort.mcioc.scope.PlayerScoped;
 import be.garagepoort.mcioc.tubingbukkit.annotations.IocBukkitListener;
 import be.garagepoort.mcioc.tubingbukkit.messaging.Messages;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Listener;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
 import java.util.function.Consumer;
 
 @IocBean
@@ -16,10 +15,11 @@ import java.util.function.Consumer;
 public class ChatActionService implements Listener {
 
     private final Messages messages;
-    private final Map<UUID, Consumer<String>> actions = new HashMap<>();
+    private final PlayerScoped<Consumer<String>> actions;
 
-    public ChatActionService(Messages messages) {
+    public ChatActionService(Messages messages, PlayerScope playerScope) {
         this.messages = messages;
+        this.actions = playerScope.create();
     }
 
     public void requireInput(Player player, String message, Consumer<String> input) {
@@ -31,7 +31,7 @@ public class ChatActionService implements Listener {
         actions.put(player.getUniqueId(), input);
     }
 
-    Map<UUID, Consumer<String>> getActions() {
+    PlayerScoped<Consumer<String>> getActions() {
         return actions;
     }
 }
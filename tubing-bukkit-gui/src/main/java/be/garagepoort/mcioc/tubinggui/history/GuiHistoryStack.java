@@ -1,10 +1,10 @@
 package be.garagepoort.mcioc.tubinggui.history;
 
 import be.garagepoort.mcioc.IocBean;
+import be.garagepoort.mcioc.scope.PlayerScope;
+import be.garagepoort.mcioc.scope.PlayerScoped;
 import be.garagepoort.mcioc.tubinggui.actionquery.GuiActionQuery;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Stack;
 import java.util.UUID;
@@ -14,10 +14,13 @@ import java.util.regex.Pattern;
 public class GuiHistoryStack {
 
     private static final String SKIP_HISTORY = "$SKIP_HISTORY$";
-    private final Map<UUID, Stack<String>> playerHistoryStack = new HashMap<>();
+    private final PlayerScoped<Stack<String>> playerHistoryStack;
+
+    public GuiHistoryStack(PlayerScope playerScope) {
+        this.playerHistoryStack = playerScope.create(playerUuid -> new Stack<>());
+    }
 
     public void push(UUID playerUuid, GuiActionQuery action, boolean overrideHistory, boolean skipHistory) {
-        this.playerHistoryStack.putIfAbsent(playerUuid, new Stack<>());
         Stack<String> historyStack = this.playerHistoryStack.get(playerUuid);
         if(skipHistory) {
             historyStack.push(SKIP_HISTORY);
@@ -34,7 +37,6 @@ public class GuiHistoryStack {
     }
 
     public Optional<String> pop(UUID playerUuid) {
-        this.playerHistoryStack.putIfAbsent(playerUuid, new Stack<>());
         Stack<String> stack = this.playerHistoryStack.get(playerUuid);
         if (stack.size() < 2) {
             return Optional.empty();
@@ -52,7 +54,6 @@ public class GuiHistoryStack {
     }
 
     public boolean isLastAction(UUID playerUuid, String action) {
-        this.playerHistoryStack.putIfAbsent(playerUuid, new Stack<>());
         Stack<String> stack = this.playerHistoryStack.get(playerUuid);
         if (stack.size() < 1) {
             return false;
@@ -20,7 +20,6 @@ import org.jsoup.select.Elements;
 
 import java.io.IOException;
 import java.io.StringWriter;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -49,15 +48,12 @@ public class ChatTemplateResolver {
             StringWriter stringWriter = new StringWriter();
 
             Map<String, FileConfiguration> fileConfigurations = configurationLoader.getConfigurationFiles();
-            fileConfigurations.forEach((k, v) -> {
-                Collection<String> keys = v.getKeys(true);
-                for (String key : keys) {
-                    params.put(k + ":" + key, v.get(key));
-                    if (k.equalsIgnoreCase("config")) {
-                        params.put(key, v.get(key));
-                    }
+            fileConfigurations.forEach((k, v) -> v.getValues(true).forEach((key, value) -> {
+                params.put(k + ":" + key, value);
+                if (k.equalsIgnoreCase("config")) {
+                    params.put(key, value);
                 }
-            });
+            }));
 
             params.put("statics", statics);
             template.process(params, stringWriter);
@@ -6,6 +6,7 @@ import be.garagepoort.mcioc.configuration.ConfigurationLoader;
 import be.garagepoort.mcioc.configuration.files.ConfigurationFile;
 import be.garagepoort.mcioc.configuration.yaml.configuration.file.FileConfiguration;
 import be.garagepoort.mcioc.configuration.yaml.configuration.file.YamlConfiguration;
+import be.garagepoort.mcioc.scope.PlayerScope;
 import be.garagepoort.mcioc.tubingbukkit.permissions.TubingPermissionService;
 import be.garagepoort.mcioc.tubinggui.GuiActionService;
 import be.garagepoort.mcioc.tubinggui.actionquery.ActionQueryParser;
@@ -112,6 +113,7 @@ public abstract class TubingGuiTemplateTest {
         GuiTemplateResolver guiTemplateResolver = new FreemarkerGuiTemplateResolver(pluginMock, templateConfigResolverSpy, getTubingPermissionService());
         GuiTemplateProcessor guiTemplateProcessor = new GuiTemplateProcessor(guiTemplateResolver, new TubingXmlConfigParser(templateConfigResolverSpy), tubingGuiXmlParser, tubingGuiStyleParser);
 
+        PlayerScope playerScope = new PlayerScope();
         guiActionService = new GuiActionService(
             pluginMock,
             configurationLoader,
@@ -121,7 +123,8 @@ public abstract class TubingGuiTemplateTest {
             new TubingBukkitUtilStub(),
             inventoryMapper,
             tubingGuiStyleIdViewProvider,
-            new GuiHistoryStack(),
+            new GuiHistoryStack(playerScope),
+            playerScope,
             Collections.emptyList());
 
         guiActionService.loadGuiController(guiController.getClass());
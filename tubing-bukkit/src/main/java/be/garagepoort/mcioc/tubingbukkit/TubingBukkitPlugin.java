@@ -9,6 +9,7 @@ import org.bukkit.event.HandlerList;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public abstract class TubingBukkitPlugin extends JavaPlugin implements TubingPlugin {
 
@@ -38,16 +39,12 @@ public abstract class TubingBukkitPlugin extends JavaPlugin implements TubingPlu
 
     @Override
     public void onDisable() {
+        iocContainer.shutdown();
         disable();
     }
 
     public void reload() {
-        List<BeforeTubingReload> beforeTubingReloads = iocContainer.getList(BeforeTubingReload.class);
-        if (beforeTubingReloads != null) {
-            beforeTubingReloads.forEach(onLoad -> onLoad.execute(this));
-        }
-        beforeReload();
-        reloadConfig();
+        executeBeforeReload();
         HandlerList.unregisterAll(this);
         getServer().getMessenger().unregisterIncomingPluginChannel(this);
         getServer().getMessenger().unregisterOutgoingPluginChannel(this);
@@ -61,11 +58,42 @@ public abstract class TubingBukkitPlugin extends JavaPlugin implements TubingPlu
         }
     }
 
+    /**
+     * Reloads the configuration without rebuilding the whole IOC container.
+     * Only beans affected by configuration changes are recreated, listeners of the beans which are kept stay registered.
+     */
+    public void incrementalReload() {
+        executeBeforeReload();
+
+        IocContainer previous = iocContainer;
+        try {
+            iocContainer = reloadIocContainer(previous);
+            TubingBukkitBeanLoader.reload(this, previous);
+        } catch (ConfigurationException e) {
+            this.getLogger().severe(e.getLocalizedMessage());
+            this.getPluginLoader().disablePlugin(this);
+        }
+    }
+
+    private void executeBeforeReload() {
+        List<BeforeTubingReload> beforeTubingReloads = iocContainer.getList(BeforeTubingReload.class);
+        if (beforeTubingReloads != null) {
+            beforeTubingReloads.forEach(onLoad -> onLoad.execute(this));
+        }
+        beforeReload();
+        reloadConfig();
+    }
+
     @Override
     public ClassLoader getPluginClassLoader() {
         return super.getClassLoader();
     }
 
+    @Override
+    public Executor getMainThreadExecutor() {
+        return command -> getServer().getScheduler().runTask(this, command);
+    }
+
     protected void beforeReload() {
     }
 
@@ -20,4 +20,9 @@ public @interface IocBukkitCommandHandler {
     Class multiproviderClass() default Object.class;
 
     boolean priority() default false;
+
+    /**
+     * Lazy command handlers are registered as a proxy, the handler is created when the command is first used.
+     */
+    boolean lazy() default false;
 }
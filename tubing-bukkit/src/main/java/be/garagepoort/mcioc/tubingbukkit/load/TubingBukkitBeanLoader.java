@@ -1,5 +1,6 @@
 package be.garagepoort.mcioc.tubingbukkit.load;
 
+import be.garagepoort.mcioc.IocContainer;
 import be.garagepoort.mcioc.IocException;
 import be.garagepoort.mcioc.TubingPlugin;
 import be.garagepoort.mcioc.tubingbukkit.TubingBukkitPlugin;
@@ -8,10 +9,14 @@ import be.garagepoort.mcioc.tubingbukkit.annotations.IocBukkitListener;
 import be.garagepoort.mcioc.tubingbukkit.annotations.IocBukkitMessageListener;
 import org.bukkit.Bukkit;
 import org.bukkit.command.CommandExecutor;
+import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.plugin.messaging.PluginMessageListener;
 
+import java.lang.annotation.Annotation;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 public class TubingBukkitBeanLoader {
 
@@ -21,24 +26,34 @@ public class TubingBukkitBeanLoader {
         loadMessageListenerBeans(tubingPlugin);
     }
 
+    /**
+     * Registers the beans of a reloaded container. Listeners which were taken over from the previous container stay registered,
+     * listeners which were recreated or removed are unregistered.
+     */
+    public static void reload(TubingPlugin tubingPlugin, IocContainer previous) {
+        loadCommandHandlerBeans(tubingPlugin);
+        reloadListenerBeans(tubingPlugin, previous);
+        reloadMessageListenerBeans(tubingPlugin, previous);
+    }
+
     private static void loadCommandHandlerBeans(TubingPlugin tubingPlugin) {
-        List<Class<?>> typesAnnotatedWith = tubingPlugin.getIocContainer().getReflections().getClassesWithAnnotation(IocBukkitCommandHandler.class).loadClasses();
+        List<Class<?>> typesAnnotatedWith = tubingPlugin.getIocContainer().getClassIndex().getClassesWithAnnotation(IocBukkitCommandHandler.class);
 
         for (Class<?> aClass : typesAnnotatedWith) {
             if (!CommandExecutor.class.isAssignableFrom(aClass)) {
                 throw new IocException("IocCommandHandler annotation can only be used on CommandExecutors");
             }
-            if (tubingPlugin.getIocContainer().get(aClass) == null) {
+            CommandExecutor bean = (CommandExecutor) tubingPlugin.getIocContainer().getLazy(aClass);
+            if (bean == null) {
                 continue;
             }
-            CommandExecutor bean = (CommandExecutor) tubingPlugin.getIocContainer().get(aClass);
             IocBukkitCommandHandler annotation = aClass.getAnnotation(IocBukkitCommandHandler.class);
             TubingBukkitPlugin.getPlugin().getCommand(annotation.value()).setExecutor(bean);
         }
     }
 
     private static void loadListenerBeans(TubingPlugin tubingPlugin) {
-        List<Class<?>> typesAnnotatedWith = tubingPlugin.getIocContainer().getReflections().getClassesWithAnnotation(IocBukkitListener.class).loadClasses();
+        List<Class<?>> typesAnnotatedWith = tubingPlugin.getIocContainer().getClassIndex().getClassesWithAnnotation(IocBukkitListener.class);
 
         for (Class<?> aClass : typesAnnotatedWith) {
             if (!Listener.class.isAssignableFrom(aClass)) {
@@ -52,8 +67,45 @@ public class TubingBukkitBeanLoader {
         }
     }
 
+    private static void reloadListenerBeans(TubingPlugin tubingPlugin, IocContainer previous) {
+        Set<Class<?>> typesAnnotatedWith = getReloadedClasses(tubingPlugin, previous, IocBukkitListener.class);
+
+        for (Class<?> aClass : typesAnnotatedWith) {
+            Object previousBean = previous.get(aClass);
+            Object bean = tubingPlugin.getIocContainer().get(aClass);
+            if (previousBean == bean) {
+                continue;
+            }
+            if (previousBean != null) {
+                HandlerList.unregisterAll((Listener) previousBean);
+            }
+            if (bean != null) {
+                Bukkit.getPluginManager().registerEvents((Listener) bean, TubingBukkitPlugin.getPlugin());
+            }
+        }
+    }
+
+    private static void reloadMessageListenerBeans(TubingPlugin tubingPlugin, IocContainer previous) {
+        Set<Class<?>> typesAnnotatedWith = getReloadedClasses(tubingPlugin, previous, IocBukkitMessageListener.class);
+
+        for (Class<?> aClass : typesAnnotatedWith) {
+            Object previousBean = previous.get(aClass);
+            Object bean = tubingPlugin.getIocContainer().get(aClass);
+            if (previousBean == bean) {
+                continue;
+            }
+            IocBukkitMessageListener annotation = aClass.getAnnotation(IocBukkitMessageListener.class);
+            if (previousBean != null) {
+                Bukkit.getServer().getMessenger().unregisterIncomingPluginChannel(TubingBukkitPlugin.getPlugin(), annotation.channel(), (PluginMessageListener) previousBean);
+            }
+            if (bean != null) {
+                Bukkit.getServer().getMessenger().registerIncomingPluginChannel(TubingBukkitPlugin.getPlugin(), annotation.channel(), (PluginMessageListener) bean);
+            }
+        }
+    }
+
     private static void loadMessageListenerBeans(TubingPlugin tubingPlugin) {
-        List<Class<?>> typesAnnotatedWith = tubingPlugin.getIocContainer().getReflections().getClassesWithAnnotation(IocBukkitMessageListener.class).loadClasses();
+        List<Class<?>> typesAnnotatedWith = tubingPlugin.getIocContainer().getClassIndex().getClassesWithAnnotation(IocBukkitMessageListener.class);
 
         for (Class<?> aClass : typesAnnotatedWith) {
             if (!PluginMessageListener.class.isAssignableFrom(aClass)) {
@@ -67,4 +119,13 @@ public class TubingBukkitBeanLoader {
             Bukkit.getServer().getMessenger().registerIncomingPluginChannel(TubingBukkitPlugin.getPlugin(), annotation.channel(), bean);
         }
     }
+
+    /**
+     * The classes of both containers, beans which got disabled by their conditionalOnProperty are only part of the previous one.
+     */
+    private static Set<Class<?>> getReloadedClasses(TubingPlugin tubingPlugin, IocContainer previous, Class<? extends Annotation> annotation) {
+        Set<Class<?>> classes = new LinkedHashSet<>(previous.getClassIndex().getClassesWithAnnotation(annotation));
+        classes.addAll(tubingPlugin.getIocContainer().getClassIndex().getClassesWithAnnotation(annotation));
+        return classes;
+    }
 }
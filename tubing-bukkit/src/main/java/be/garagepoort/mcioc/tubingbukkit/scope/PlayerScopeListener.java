@@ -0,0 +1,23 @@
+package be.garagepoort.mcioc.tubingbukkit.scope;
+
+import be.garagepoort.mcioc.scope.PlayerScope;
+import be.garagepoort.mcioc.tubingbukkit.annotations.IocBukkitListener;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+@IocBukkitListener
+public class PlayerScopeListener implements Listener {
+
+    private final PlayerScope playerScope;
+
+    public PlayerScopeListener(PlayerScope playerScope) {
+        this.playerScope = playerScope;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        playerScope.release(event.getPlayer().getUniqueId());
+    }
+}
@@ -29,6 +29,7 @@ public abstract class TubingBungeePlugin extends Plugin implements TubingPlugin
 
     @Override
     public void onDisable() {
+        iocContainer.shutdown();
         disable();
     }
 
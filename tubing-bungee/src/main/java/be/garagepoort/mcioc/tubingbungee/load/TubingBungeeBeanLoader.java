@@ -1,8 +1,10 @@
 package be.garagepoort.mcioc.tubingbungee.load;
 
 import be.garagepoort.mcioc.IocException;
+import be.garagepoort.mcioc.scope.PlayerScope;
 import be.garagepoort.mcioc.tubingbungee.TubingBungeePlugin;
 import be.garagepoort.mcioc.tubingbungee.annotations.IocBungeeCommandHandler;
+import be.garagepoort.mcioc.tubingbungee.scope.PlayerScopeListener;
 import net.md_5.bungee.api.ProxyServer;
 import net.md_5.bungee.api.plugin.Command;
 import net.md_5.bungee.api.plugin.PluginManager;
@@ -13,10 +15,18 @@ public class TubingBungeeBeanLoader {
 
     public static void load(TubingBungeePlugin tubingPlugin) {
         loadCommandHandlerBeans(tubingPlugin);
+        loadPlayerScopeListener(tubingPlugin);
+    }
+
+    private static void loadPlayerScopeListener(TubingBungeePlugin tubingPlugin) {
+        PlayerScope playerScope = tubingPlugin.getIocContainer().get(PlayerScope.class);
+        if (playerScope != null) {
+            ProxyServer.getInstance().getPluginManager().registerListener(tubingPlugin, new PlayerScopeListener(playerScope));
+        }
     }
 
     private static void loadCommandHandlerBeans(TubingBungeePlugin tubingPlugin) {
-        List<Class<?>> typesAnnotatedWith = tubingPlugin.getIocContainer().getReflections().getClassesWithAnnotation(IocBungeeCommandHandler.class).loadClasses();
+        List<Class<?>> typesAnnotatedWith = tubingPlugin.getIocContainer().getClassIndex().getClassesWithAnnotation(IocBungeeCommandHandler.class);
 
         PluginManager pluginManager = ProxyServer.getInstance().getPluginManager();
         for (Class<?> aClass : typesAnnotatedWith) {
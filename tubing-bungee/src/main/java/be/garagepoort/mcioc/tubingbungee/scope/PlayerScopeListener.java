@@ -0,0 +1,24 @@
+package be.garagepoort.mcioc.tubingbungee.scope;
+
+import be.garagepoort.mcioc.scope.PlayerScope;
+import net.md_5.bungee.api.event.PlayerDisconnectEvent;
+import net.md_5.bungee.api.plugin.Listener;
+import net.md_5.bungee.event.EventHandler;
+import net.md_5.bungee.event.EventPriority;
+
+/**
+ * Registered by the {@link be.garagepoort.mcioc.tubingbungee.load.TubingBungeeBeanLoader}, bungee listeners are not registered automatically.
+ */
+public class PlayerScopeListener implements Listener {
+
+    private final PlayerScope playerScope;
+
+    public PlayerScopeListener(PlayerScope playerScope) {
+        this.playerScope = playerScope;
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onDisconnect(PlayerDisconnectEvent event) {
+        playerScope.release(event.getPlayer().getUniqueId());
+    }
+}
@@ -0,0 +1,209 @@
+package be.garagepoort.mcioc;
+
+import be.garagepoort.mcioc.configuration.ConfigInterface;
+import be.garagepoort.mcioc.configuration.ConfigProperty;
+import be.garagepoort.mcioc.load.InjectTubingPlugin;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled factory of a bean constructor or a provider method.
+ * <p>
+ * The constructor and its parameter annotations are only reflected upon once per class.
+ * Every following container build of the same class (reloads, multiple plugins) reuses the cached method handle and parameter descriptors.
+ */
+final class BeanFactory {
+
+    private static final ClassValue<BeanFactory> CONSTRUCTORS = new ClassValue<BeanFactory>() {
+        @Override
+        protected BeanFactory computeValue(Class<?> type) {
+            return compileConstructor(type);
+        }
+    };
+
+    private static final ClassValue<Map<Method, BeanFactory>> METHODS = new ClassValue<Map<Method, BeanFactory>>() {
+        @Override
+        protected Map<Method, BeanFactory> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private final GeneratedBeans.Instantiator instantiator;
+    private final BeanParameter[] parameters;
+
+    private BeanFactory(GeneratedBeans.Instantiator instantiator, BeanParameter[] parameters) {
+        this.instantiator = instantiator;
+        this.parameters = parameters;
+    }
+
+    static BeanFactory forConstructor(Class<?> aClass) {
+        return CONSTRUCTORS.get(aClass);
+    }
+
+    static BeanFactory forMethod(Method method) {
+        return METHODS.get(method.getDeclaringClass()).computeIfAbsent(method, BeanFactory::compileMethod);
+    }
+
+    /**
+     * Factory registered by a {@link GeneratedContext}, which calls the constructor or provider directly.
+     */
+    static BeanFactory generated(GeneratedBeans.Instantiator instantiator, BeanParameter[] parameters) {
+        return new BeanFactory(instantiator, parameters);
+    }
+
+    BeanParameter[] getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Invokes the constructor or static method.
+     * Anything thrown by the invoked code is wrapped in an {@link InvocationTargetException}, same as reflective invocation would do.
+     */
+    Object create(Object[] params) throws InvocationTargetException {
+        try {
+            return instantiator.create(params);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    private static BeanFactory compileConstructor(Class<?> aClass) {
+        Constructor<?>[] declaredConstructors = aClass.getDeclaredConstructors();
+        if (declaredConstructors.length > 1) {
+            throw new IocException("Cannot instantiate bean with type " + aClass.getName() + ". Only one constructor should be defined");
+        }
+
+        Constructor<?> declaredConstructor = declaredConstructors[0];
+        try {
+            MethodHandle methodHandle = MethodHandles.lookup().unreflectConstructor(declaredConstructor);
+            return new BeanFactory(spread(methodHandle), getParameters(declaredConstructor.getParameterTypes(), declaredConstructor.getGenericParameterTypes(), declaredConstructor.getParameterAnnotations()));
+        } catch (IllegalAccessException e) {
+            throw new IocException("Cannot instantiate bean with type " + aClass.getName() + ".", e);
+        }
+    }
+
+    private static BeanFactory compileMethod(Method method) {
+        try {
+            MethodHandle methodHandle = MethodHandles.lookup().unreflect(method);
+            return new BeanFactory(spread(methodHandle), getParameters(method.getParameterTypes(), method.getGenericParameterTypes(), method.getParameterAnnotations()));
+        } catch (IllegalAccessException e) {
+            throw new IocException("Cannot access method " + method.getDeclaringClass().getName() + "#" + method.getName(), e);
+        }
+    }
+
+    private static GeneratedBeans.Instantiator spread(MethodHandle methodHandle) {
+        int parameterCount = methodHandle.type().parameterCount();
+        MethodHandle spreader = methodHandle.asType(MethodType.genericMethodType(parameterCount))
+            .asSpreader(Object[].class, parameterCount)
+            .asType(MethodType.methodType(Object.class, Object[].class));
+        return params -> (Object) spreader.invokeExact(params);
+    }
+
+    /**
+     * The generic types can miss synthetic parameters, they are only used when they line up with the parameter types.
+     */
+    private static BeanParameter[] getParameters(Class<?>[] parameterTypes, Type[] genericParameterTypes, Annotation[][] parameterAnnotations) {
+        BeanParameter[] parameters = new BeanParameter[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Type genericType = genericParameterTypes.length == parameterTypes.length ? genericParameterTypes[i] : parameterTypes[i];
+            parameters[i] = new BeanParameter(parameterTypes[i], genericType, parameterAnnotations[i]);
+        }
+        return parameters;
+    }
+
+    static final class BeanParameter {
+
+        enum Kind {
+            TUBING_PLUGIN,
+            CONFIG_PROPERTY,
+            CONFIG_INTERFACE,
+            MULTI,
+            FUTURE,
+            BEAN
+        }
+
+        private final Class<?> type;
+        private final Annotation[] annotations;
+        private final Kind kind;
+        private final Class<?> beanType;
+
+        BeanParameter(Class<?> type, Kind kind, Class<?> beanType) {
+            this.type = type;
+            this.annotations = new Annotation[0];
+            this.kind = kind;
+            this.beanType = beanType;
+        }
+
+        private BeanParameter(Class<?> type, Type genericType, Annotation[] annotations) {
+            this.type = type;
+            this.annotations = annotations;
+
+            Kind parameterKind = Kind.BEAN;
+            Class<?> parameterBeanType = type;
+            for (Annotation annotation : annotations) {
+                if (annotation.annotationType().equals(InjectTubingPlugin.class)) {
+                    parameterKind = Kind.TUBING_PLUGIN;
+                    break;
+                }
+                if (annotation.annotationType().equals(ConfigProperty.class)) {
+                    parameterKind = Kind.CONFIG_PROPERTY;
+                } else if (annotation.annotationType().equals(IocMulti.class) && parameterKind != Kind.CONFIG_PROPERTY) {
+                    parameterKind = Kind.MULTI;
+                    parameterBeanType = ((IocMulti) annotation).value();
+                }
+            }
+            if (parameterKind == Kind.BEAN && type == IocFuture.class) {
+                parameterKind = Kind.FUTURE;
+                parameterBeanType = getFutureType(genericType);
+            }
+            if (parameterKind == Kind.BEAN && type.isInterface() && type.isAnnotationPresent(ConfigInterface.class)) {
+                parameterKind = Kind.CONFIG_INTERFACE;
+            }
+            this.kind = parameterKind;
+            this.beanType = parameterBeanType;
+        }
+
+        private static Class<?> getFutureType(Type genericType) {
+            if (genericType instanceof ParameterizedType) {
+                Type typeArgument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+                if (typeArgument instanceof ParameterizedType) {
+                    typeArgument = ((ParameterizedType) typeArgument).getRawType();
+                }
+                if (typeArgument instanceof Class) {
+                    return (Class<?>) typeArgument;
+                }
+            }
+            throw new IocException("IocFuture parameters must declare the bean type, e.g. IocFuture<MyBean>");
+        }
+
+        Class<?> getType() {
+            return type;
+        }
+
+        Annotation[] getAnnotations() {
+            return annotations;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * The type to resolve from the container, for {@link IocMulti} parameters this is the type of the list elements
+         * and for {@link IocFuture} parameters the type of the bean.
+         */
+        Class<?> getBeanType() {
+            return beanType;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package be.garagepoort.mcioc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Creates the beans of a dependency graph in topological waves.
+ * <p>
+ * All beans of a wave only depend on beans of earlier waves, so with {@code -Dtubing.parallel=true} they are created in
+ * parallel on a {@link ForkJoinPool}, with the context class loader of the calling thread. Beans that have to be created on
+ * the main thread are created by the calling thread while the pool works on the others.
+ * Once a wave is created its beans are registered in dependency order on the calling thread.
+ * Async beans are handed off to a separate executor and registered once created, the beans depending on them wait for them when they are created.
+ */
+class BeanGraphExecutor {
+
+    private final ForkJoinPool forkJoinPool;
+    private final boolean parallel;
+    private final Executor asyncExecutor;
+
+    BeanGraphExecutor(ForkJoinPool forkJoinPool, boolean parallel, Executor asyncExecutor) {
+        this.forkJoinPool = forkJoinPool;
+        this.parallel = parallel;
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    void execute(List<BeanNode> roots) {
+        for (List<BeanNode> wave : getWaves(roots)) {
+            List<BeanNode> syncWave = new ArrayList<>(wave.size());
+            for (BeanNode beanNode : wave) {
+                if (beanNode.isAsync()) {
+                    beanNode.start(asyncExecutor);
+                } else {
+                    syncWave.add(beanNode);
+                }
+            }
+            createWave(syncWave);
+            syncWave.forEach(BeanNode::register);
+        }
+    }
+
+    private void createWave(List<BeanNode> wave) {
+        if (!parallel || wave.size() <= 1) {
+            for (BeanNode beanNode : wave) {
+                create(beanNode);
+            }
+            return;
+        }
+
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (BeanNode beanNode : wave) {
+            if (!beanNode.isMainThread()) {
+                tasks.add(forkJoinPool.submit(() -> create(beanNode, contextClassLoader)));
+            }
+        }
+
+        RuntimeException failure = null;
+        try {
+            for (BeanNode beanNode : wave) {
+                if (beanNode.isMainThread()) {
+                    create(beanNode);
+                }
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        for (ForkJoinTask<?> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IocException("Interrupted while creating beans", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IocException("Could not create bean", e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void create(BeanNode beanNode, ClassLoader contextClassLoader) {
+        Thread thread = Thread.currentThread();
+        ClassLoader previousClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(contextClassLoader);
+        try {
+            create(beanNode);
+        } finally {
+            thread.setContextClassLoader(previousClassLoader);
+        }
+    }
+
+    private void create(BeanNode beanNode) {
+        try {
+            beanNode.create();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IocException("Could not validate instantiate beans", e);
+        }
+    }
+
+    private List<List<BeanNode>> getWaves(List<BeanNode> roots) {
+        Set<BeanNode> ordered = new LinkedHashSet<>();
+        for (BeanNode root : roots) {
+            addInDependencyOrder(root, ordered);
+        }
+
+        Map<BeanNode, Integer> levels = new HashMap<>();
+        List<List<BeanNode>> waves = new ArrayList<>();
+        for (BeanNode beanNode : ordered) {
+            int level = 0;
+            for (BeanNode dependency : beanNode.getDependencies()) {
+                if (levels.containsKey(dependency)) {
+                    level = Math.max(level, levels.get(dependency) + 1);
+                }
+            }
+            levels.put(beanNode, level);
+            if (waves.size() == level) {
+                waves.add(new ArrayList<>());
+            }
+            waves.get(level).add(beanNode);
+        }
+        return waves;
+    }
+
+    private void addInDependencyOrder(BeanNode beanNode, Set<BeanNode> ordered) {
+        if (beanNode.isRegistered()) {
+            beanNode.getDependenciesAddedAfterRegistration().forEach(dependency -> addInDependencyOrder(dependency, ordered));
+            return;
+        }
+        if (beanNode.isStarted() || ordered.contains(beanNode)) {
+            return;
+        }
+        for (BeanNode dependency : beanNode.getDependencies()) {
+            addInDependencyOrder(dependency, ordered);
+        }
+        ordered.add(beanNode);
+    }
+}
@@ -0,0 +1,123 @@
+package be.garagepoort.mcioc;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The annotations of a bean class the container needs while planning, read once per container.
+ * <p>
+ * The metadata comes from a {@link GeneratedContext} when available, otherwise it is read reflectively.
+ */
+final class BeanMetadata {
+
+    private final List<BeanAnnotation> annotations;
+    private final Class<?>[] multiProviderClasses;
+    private final boolean conditionalOnMissingBean;
+
+    BeanMetadata(List<BeanAnnotation> annotations, Class<?>[] multiProviderClasses, boolean conditionalOnMissingBean) {
+        this.annotations = annotations;
+        this.multiProviderClasses = multiProviderClasses;
+        this.conditionalOnMissingBean = conditionalOnMissingBean;
+    }
+
+    static BeanMetadata read(Class<?> aClass, List<Class> beanAnnotations) {
+        List<BeanAnnotation> annotations = new ArrayList<>();
+        for (Annotation annotation : aClass.getAnnotations()) {
+            if (beanAnnotations.contains(annotation.annotationType())) {
+                annotations.add(new BeanAnnotation(annotation.annotationType(),
+                    getAnnotationValue(annotation, "conditionalOnProperty", ""),
+                    getAnnotationValue(annotation, "priority", false),
+                    getAnnotationValue(annotation, "multiproviderClass", Object.class),
+                    getAnnotationValue(annotation, "mainThread", false),
+                    getAnnotationValue(annotation, "lazy", false),
+                    getAnnotationValue(annotation, "async", false)));
+            }
+        }
+        IocMultiProvider multiProvider = aClass.getAnnotation(IocMultiProvider.class);
+        return new BeanMetadata(annotations, multiProvider == null ? null : multiProvider.value(), aClass.isAnnotationPresent(ConditionalOnMissingBean.class));
+    }
+
+    /**
+     * The first annotation of the class which is registered as bean annotation.
+     */
+    Optional<BeanAnnotation> getBeanAnnotation(List<Class> beanAnnotations) {
+        return annotations.stream()
+            .filter(a -> beanAnnotations.contains(a.getAnnotationType()))
+            .findFirst();
+    }
+
+    /**
+     * The value of the {@link IocMultiProvider} annotation on the class, null when the class is not a multi provider.
+     */
+    Class<?>[] getMultiProviderClasses() {
+        return multiProviderClasses;
+    }
+
+    boolean isConditionalOnMissingBean() {
+        return conditionalOnMissingBean;
+    }
+
+    /**
+     * Bean annotations registered through a {@link be.garagepoort.mcioc.load.TubingBeanAnnotationRegistrator} don't necessarily define every attribute of {@link IocBean}.
+     */
+    private static <T> T getAnnotationValue(Annotation annotation, String attribute, T defaultValue) {
+        try {
+            return (T) annotation.annotationType().getMethod(attribute).invoke(annotation);
+        } catch (NoSuchMethodException e) {
+            return defaultValue;
+        } catch (InvocationTargetException | IllegalAccessException e) {
+            throw new RuntimeException("Invalid bean configuration. not property found");
+        }
+    }
+
+    static final class BeanAnnotation {
+        private final Class<? extends Annotation> annotationType;
+        private final String conditionalOnProperty;
+        private final boolean priority;
+        private final Class<?> multiproviderClass;
+        private final boolean mainThread;
+        private final boolean lazy;
+        private final boolean async;
+
+        BeanAnnotation(Class<? extends Annotation> annotationType, String conditionalOnProperty, boolean priority, Class<?> multiproviderClass, boolean mainThread, boolean lazy, boolean async) {
+            this.annotationType = annotationType;
+            this.conditionalOnProperty = conditionalOnProperty;
+            this.priority = priority;
+            this.multiproviderClass = multiproviderClass;
+            this.mainThread = mainThread;
+            this.lazy = lazy;
+            this.async = async;
+        }
+
+        Class<? extends Annotation> getAnnotationType() {
+            return annotationType;
+        }
+
+        String getConditionalOnProperty() {
+            return conditionalOnProperty;
+        }
+
+        boolean isPriority() {
+            return priority;
+        }
+
+        Class<?> getMultiproviderClass() {
+            return multiproviderClass;
+        }
+
+        boolean isMainThread() {
+            return mainThread;
+        }
+
+        boolean isLazy() {
+            return lazy;
+        }
+
+        boolean isAsync() {
+            return async;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package be.garagepoort.mcioc;
+
+import be.garagepoort.mcioc.configuration.ConfigurationPropertyTracker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * A single bean in the dependency graph of the {@link IocContainer}.
+ * <p>
+ * Creating the bean can happen on any thread once all dependencies are created.
+ * Registering it in the container happens on the thread initializing the container, except for async beans which are
+ * registered by the thread creating them.
+ */
+class BeanNode {
+
+    private final Class<?> type;
+    private final boolean mainThread;
+    private final boolean lazy;
+    private final CompletableFuture<Object> asyncBean;
+    private String name;
+    private final List<BeanNode> dependencies = new ArrayList<>();
+    private final List<List<Object>> beanLists = new ArrayList<>();
+    private Callable<Object> factory;
+    private Consumer<Object> registration;
+    private final Set<String> configurationProperties = new HashSet<>();
+    private final List<BeanNode> dependenciesAddedAfterRegistration = new ArrayList<>();
+    private boolean lazyDependencies;
+    private boolean reused;
+    private volatile State state = State.NEW;
+    private Object bean;
+
+    /**
+     * A node is created once and registered once, async beans are started before they are created.
+     */
+    enum State {
+        NEW,
+        STARTED,
+        CREATED,
+        REGISTERED
+    }
+
+    BeanNode(Class<?> type, boolean mainThread) {
+        this(type, mainThread, false);
+    }
+
+    BeanNode(Class<?> type, boolean mainThread, boolean lazy) {
+        this(type, mainThread, lazy, false);
+    }
+
+    BeanNode(Class<?> type, boolean mainThread, boolean lazy, boolean async) {
+        this.type = type;
+        this.mainThread = mainThread;
+        this.lazy = lazy;
+        this.asyncBean = async ? new CompletableFuture<>() : null;
+        this.name = type.getName();
+    }
+
+    Class<?> getType() {
+        return type;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void setName(String name) {
+        this.name = name;
+    }
+
+    boolean isMainThread() {
+        return mainThread;
+    }
+
+    /**
+     * Lazy beans are only created once they are retrieved from the container or needed by a bean which is created.
+     */
+    boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Async beans are created on a separate thread pool, beans depending on them only wait for them when they are created themselves.
+     */
+    boolean isAsync() {
+        return asyncBean != null;
+    }
+
+    /**
+     * The future of an async bean, completed once the bean is created and registered.
+     */
+    CompletableFuture<Object> getAsyncBean() {
+        return asyncBean;
+    }
+
+    /**
+     * Whether the creation of the bean was handed off to another thread, async beans are only started once.
+     */
+    boolean isStarted() {
+        return state != State.NEW;
+    }
+
+    void start(Executor executor) {
+        state = State.STARTED;
+        CompletableFuture.runAsync(() -> {
+            try {
+                create();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+            register();
+        }, executor).whenComplete((result, failure) -> {
+            if (failure != null) {
+                asyncBean.completeExceptionally(failure);
+            } else {
+                asyncBean.complete(bean);
+            }
+        });
+    }
+
+    /**
+     * Waits for an async bean to be created.
+     */
+    Object awaitBean() {
+        return new IocFuture<>(type, asyncBean).get();
+    }
+
+    List<BeanNode> getDependencies() {
+        return Collections.unmodifiableList(dependencies);
+    }
+
+    void addDependency(BeanNode dependency) {
+        dependencies.add(dependency);
+        if (isRegistered()) {
+            dependenciesAddedAfterRegistration.add(dependency);
+        }
+    }
+
+    /**
+     * Dependencies added once the bean was registered, like the beans of a bean list resolved by a later bean.
+     * The bean is not created again, but these dependencies still have to be created when the bean is needed.
+     */
+    List<BeanNode> getDependenciesAddedAfterRegistration() {
+        return Collections.unmodifiableList(dependenciesAddedAfterRegistration);
+    }
+
+    /**
+     * Lazy and async dependencies are injected as a proxy or {@link IocFuture} and are therefore not part of the dependency graph.
+     */
+    void addLazyDependency() {
+        lazyDependencies = true;
+    }
+
+    boolean hasLazyDependencies() {
+        return lazyDependencies;
+    }
+
+    void setFactory(Callable<Object> factory) {
+        this.factory = factory;
+    }
+
+    void setRegistration(Consumer<Object> registration) {
+        this.registration = registration;
+    }
+
+    /**
+     * Beans annotated with {@link IocMultiProvider} or with a multiproviderClass are added to the bean list of those classes as well.
+     */
+    void addBeanList(List<Object> beanList) {
+        beanLists.add(beanList);
+        if (isRegistered()) {
+            addToBeanList(beanList);
+        }
+    }
+
+    /**
+     * Reuses the bean created by the same node of a previous container instead of creating a new one.
+     */
+    void reuse(BeanNode previous) {
+        Object previousBean = previous.getBean();
+        factory = () -> previousBean;
+        configurationProperties.addAll(previous.getConfigurationProperties());
+        reused = true;
+    }
+
+    boolean isReused() {
+        return reused;
+    }
+
+    void create() throws Exception {
+        for (BeanNode dependency : dependencies) {
+            if (dependency.isAsync()) {
+                dependency.awaitBean();
+            }
+        }
+        bean = ConfigurationPropertyTracker.track(configurationProperties, factory);
+        state = State.CREATED;
+    }
+
+    /**
+     * The configuration properties read while creating the bean.
+     */
+    Set<String> getConfigurationProperties() {
+        return configurationProperties;
+    }
+
+    void register() {
+        registration.accept(bean);
+        beanLists.forEach(this::addToBeanList);
+        state = State.REGISTERED;
+    }
+
+    boolean isRegistered() {
+        return state == State.REGISTERED;
+    }
+
+    Object getBean() {
+        return bean;
+    }
+
+    private void addToBeanList(List<Object> beanList) {
+        synchronized (beanList) {
+            if (bean != null && !beanList.contains(bean)) {
+                beanList.add(bean);
+            }
+        }
+    }
+}
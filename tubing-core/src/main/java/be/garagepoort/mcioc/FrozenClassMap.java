@@ -0,0 +1,218 @@
+package be.garagepoort.mcioc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable map keyed by class, used for the bean lookups of a frozen {@link IocContainer}.
+ * <p>
+ * The keys are stored in an open addressing table of at least twice the number of keys, placed with a hash and displace
+ * perfect hash: every key is first hashed to a bucket, and every bucket stores the displacement which moves its keys to
+ * free slots. A lookup is two array reads and a single identity comparison. If no perfect hash is found, which can only
+ * happen when classes share their identity hash code, the table falls back to linear probing.
+ * <p>
+ * Keys added by {@link #with(Map)} are kept in a small overflow map which is only read when the table misses, so adding
+ * entries never searches a new perfect hash. The overflow is merged into the table when the map is built again by {@link #of(Map)}.
+ */
+final class FrozenClassMap<V> {
+
+    private static final int MAX_DISPLACEMENT = 1 << 16;
+    private static final int MAX_GROWTH = 2;
+
+    private final Class<?>[] keys;
+    private final Object[] values;
+    private final int[] displacements;
+    private final int size;
+    private final Map<Class<?>, V> overflow;
+
+    private FrozenClassMap(Class<?>[] keys, Object[] values, int[] displacements, int size, Map<Class<?>, V> overflow) {
+        this.keys = keys;
+        this.values = values;
+        this.displacements = displacements;
+        this.size = size;
+        this.overflow = overflow;
+    }
+
+    static <V> FrozenClassMap<V> of(Map<? extends Class, ? extends V> map) {
+        int minimumCapacity = tableSize(map.size() * 2);
+        for (int capacity = minimumCapacity; capacity <= minimumCapacity << MAX_GROWTH; capacity <<= 1) {
+            FrozenClassMap<V> frozenClassMap = buildPerfect(map, capacity);
+            if (frozenClassMap != null) {
+                return frozenClassMap;
+            }
+        }
+        return buildProbing(map, minimumCapacity);
+    }
+
+    V get(Class<?> key) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            return (V) values[index];
+        }
+        return overflow == null ? null : overflow.get(key);
+    }
+
+    /**
+     * The slot of the key in the table, or -1 when the table does not contain it.
+     */
+    private int indexOf(Class<?> key) {
+        int hash = System.identityHashCode(key);
+        int mask = keys.length - 1;
+        if (displacements != null) {
+            int index = slot(hash, displacements[bucket(hash, displacements.length)], mask);
+            return keys[index] == key ? index : -1;
+        }
+        int index = slot(hash, 0, mask);
+        Class<?> current;
+        while ((current = keys[index]) != null) {
+            if (current == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    V getOrDefault(Class<?> key, V defaultValue) {
+        V value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    boolean containsKey(Class<?> key) {
+        return get(key) != null;
+    }
+
+    int size() {
+        return overflow == null ? size : size + overflow.size();
+    }
+
+    void forEach(BiConsumer<Class<?>, V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+        if (overflow != null) {
+            overflow.forEach(action);
+        }
+    }
+
+    /**
+     * A copy of this map with the given entries added or replaced. Replaced keys are updated in a copy of the values,
+     * new keys are added to a copy of the overflow map, the keys of the table are shared with this map.
+     */
+    FrozenClassMap<V> with(Map<? extends Class, ? extends V> entries) {
+        Object[] newValues = values;
+        Map<Class<?>, V> newOverflow = overflow;
+        for (Map.Entry<? extends Class, ? extends V> entry : entries.entrySet()) {
+            int index = indexOf(entry.getKey());
+            if (index >= 0) {
+                if (newValues == values) {
+                    newValues = values.clone();
+                }
+                newValues[index] = entry.getValue();
+            } else {
+                if (newOverflow == overflow) {
+                    newOverflow = overflow == null ? new HashMap<>() : new HashMap<>(overflow);
+                }
+                newOverflow.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new FrozenClassMap<>(keys, newValues, displacements, size, newOverflow);
+    }
+
+    private static <V> FrozenClassMap<V> buildPerfect(Map<? extends Class, ? extends V> map, int capacity) {
+        int mask = capacity - 1;
+        int[] displacements = new int[tableSize(map.size() / 2)];
+        List<List<Map.Entry<? extends Class, ? extends V>>> buckets = new ArrayList<>(displacements.length);
+        for (int i = 0; i < displacements.length; i++) {
+            buckets.add(new ArrayList<>(2));
+        }
+        for (Map.Entry<? extends Class, ? extends V> entry : map.entrySet()) {
+            buckets.get(bucket(System.identityHashCode(entry.getKey()), displacements.length)).add(entry);
+        }
+        List<Integer> bucketOrder = new ArrayList<>(displacements.length);
+        for (int i = 0; i < displacements.length; i++) {
+            bucketOrder.add(i);
+        }
+        bucketOrder.sort((b1, b2) -> Integer.compare(buckets.get(b2).size(), buckets.get(b1).size()));
+
+        Class<?>[] keys = new Class<?>[capacity];
+        Object[] values = new Object[capacity];
+        int[] slots = new int[buckets.isEmpty() ? 0 : buckets.get(bucketOrder.get(0)).size()];
+        for (int bucketIndex : bucketOrder) {
+            List<Map.Entry<? extends Class, ? extends V>> bucket = buckets.get(bucketIndex);
+            if (bucket.isEmpty()) {
+                break;
+            }
+            int displacement = findDisplacement(bucket, keys, slots, mask);
+            if (displacement < 0) {
+                return null;
+            }
+            displacements[bucketIndex] = displacement;
+            for (int i = 0; i < bucket.size(); i++) {
+                keys[slots[i]] = bucket.get(i).getKey();
+                values[slots[i]] = bucket.get(i).getValue();
+            }
+        }
+        return new FrozenClassMap<>(keys, values, displacements, map.size(), null);
+    }
+
+    /**
+     * The first displacement which moves all keys of the bucket to distinct free slots, which are stored in the given array.
+     */
+    private static int findDisplacement(List<? extends Map.Entry<? extends Class, ?>> bucket, Class<?>[] keys, int[] slots, int mask) {
+        for (int displacement = 0; displacement < MAX_DISPLACEMENT; displacement++) {
+            boolean free = true;
+            for (int i = 0; i < bucket.size() && free; i++) {
+                slots[i] = slot(System.identityHashCode(bucket.get(i).getKey()), displacement, mask);
+                free = keys[slots[i]] == null;
+                for (int j = 0; j < i && free; j++) {
+                    free = slots[j] != slots[i];
+                }
+            }
+            if (free) {
+                return displacement;
+            }
+        }
+        return -1;
+    }
+
+    private static <V> FrozenClassMap<V> buildProbing(Map<? extends Class, ? extends V> map, int capacity) {
+        Class<?>[] keys = new Class<?>[capacity];
+        Object[] values = new Object[capacity];
+        int mask = capacity - 1;
+        for (Map.Entry<? extends Class, ? extends V> entry : map.entrySet()) {
+            int index = slot(System.identityHashCode(entry.getKey()), 0, mask);
+            while (keys[index] != null) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = entry.getKey();
+            values[index] = entry.getValue();
+        }
+        return new FrozenClassMap<>(keys, values, null, map.size(), null);
+    }
+
+    private static int tableSize(int minimumSize) {
+        return Math.max(2, Integer.highestOneBit(Math.max(1, minimumSize) - 1) << 1);
+    }
+
+    private static int bucket(int hash, int bucketCount) {
+        return mix(hash * 0x9E3779B9) & (bucketCount - 1);
+    }
+
+    private static int slot(int hash, int displacement, int mask) {
+        return mix(hash ^ (displacement * 0x632BE5AB)) & mask;
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        return hash ^ (hash >>> 16);
+    }
+}
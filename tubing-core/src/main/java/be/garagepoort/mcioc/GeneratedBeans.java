@@ -0,0 +1,131 @@
+package be.garagepoort.mcioc;
+
+import be.garagepoort.mcioc.BeanFactory.BeanParameter;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Bean factories and bean annotation attributes registered by the {@link GeneratedContext}s of a plugin.
+ * <p>
+ * The registration methods are called by generated code only. Bean classes are registered by name and constructor
+ * parameters are only resolved when the bean is created, so registering the context does not load the bean classes.
+ */
+public final class GeneratedBeans {
+
+    private final Map<String, Constructor> constructors = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Map<String, BeanFactory>> providers = new ConcurrentHashMap<>();
+    private final Map<String, List<BeanMetadata.BeanAnnotation>> annotations = new ConcurrentHashMap<>();
+    private final Map<String, Class<?>[]> multiProviders = new ConcurrentHashMap<>();
+    private final Set<String> conditionalOnMissingBeans = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Calls a constructor or static provider method with the resolved parameters.
+     */
+    @FunctionalInterface
+    public interface Instantiator {
+        Object create(Object[] params) throws Throwable;
+    }
+
+    public static Parameter bean(Class<?> type) {
+        return new Parameter(new BeanParameter(type, BeanParameter.Kind.BEAN, type));
+    }
+
+    public static Parameter multi(Class<?> type, Class<?> beanType) {
+        return new Parameter(new BeanParameter(type, BeanParameter.Kind.MULTI, beanType));
+    }
+
+    public static Parameter future(Class<?> beanType) {
+        return new Parameter(new BeanParameter(IocFuture.class, BeanParameter.Kind.FUTURE, beanType));
+    }
+
+    public static Parameter configInterface(Class<?> type) {
+        return new Parameter(new BeanParameter(type, BeanParameter.Kind.CONFIG_INTERFACE, type));
+    }
+
+    public static Parameter tubingPlugin(Class<?> type) {
+        return new Parameter(new BeanParameter(type, BeanParameter.Kind.TUBING_PLUGIN, type));
+    }
+
+    public void constructor(String beanClass, Instantiator instantiator, Supplier<Parameter[]> parameters) {
+        constructors.put(beanClass, new Constructor(instantiator, parameters));
+    }
+
+    public void provider(Class<?> declaringClass, String methodName, Instantiator instantiator, Parameter... parameters) {
+        BeanParameter[] beanParameters = toBeanParameters(parameters);
+        providers.computeIfAbsent(declaringClass, k -> new ConcurrentHashMap<>())
+            .put(getMethodKey(methodName, Arrays.stream(beanParameters).map(BeanParameter::getType).toArray(Class[]::new)), BeanFactory.generated(instantiator, beanParameters));
+    }
+
+    /**
+     * Registers a runtime annotation of a bean class. Annotations are registered in declaration order,
+     * attributes which the annotation does not define are passed as their {@link IocBean} default.
+     */
+    public void annotation(String beanClass, Class<? extends Annotation> annotationType, String conditionalOnProperty, boolean priority, Class<?> multiproviderClass, boolean mainThread, boolean lazy, boolean async) {
+        annotations.computeIfAbsent(beanClass, k -> Collections.synchronizedList(new ArrayList<>()))
+            .add(new BeanMetadata.BeanAnnotation(annotationType, conditionalOnProperty, priority, multiproviderClass, mainThread, lazy, async));
+    }
+
+    public void multiProvider(String beanClass, Class<?>... multiProviderClasses) {
+        multiProviders.put(beanClass, multiProviderClasses);
+    }
+
+    public void conditionalOnMissingBean(String beanClass) {
+        conditionalOnMissingBeans.add(beanClass);
+    }
+
+    BeanFactory getConstructor(Class<?> beanClass) {
+        Constructor constructor = constructors.get(beanClass.getName());
+        return constructor == null ? null : BeanFactory.generated(constructor.instantiator, toBeanParameters(constructor.parameters.get()));
+    }
+
+    BeanFactory getProvider(Method method) {
+        Map<String, BeanFactory> classProviders = providers.get(method.getDeclaringClass());
+        return classProviders == null ? null : classProviders.get(getMethodKey(method.getName(), method.getParameterTypes()));
+    }
+
+    /**
+     * The metadata of a class whose annotations were registered, null otherwise.
+     */
+    BeanMetadata getMetadata(Class<?> beanClass) {
+        List<BeanMetadata.BeanAnnotation> beanAnnotations = annotations.get(beanClass.getName());
+        if (beanAnnotations == null) {
+            return null;
+        }
+        return new BeanMetadata(beanAnnotations, multiProviders.get(beanClass.getName()), conditionalOnMissingBeans.contains(beanClass.getName()));
+    }
+
+    private static String getMethodKey(String methodName, Class<?>[] parameterTypes) {
+        return methodName + Arrays.toString(parameterTypes);
+    }
+
+    private static BeanParameter[] toBeanParameters(Parameter[] parameters) {
+        return Arrays.stream(parameters).map(p -> p.beanParameter).toArray(BeanParameter[]::new);
+    }
+
+    private static final class Constructor {
+        private final Instantiator instantiator;
+        private final Supplier<Parameter[]> parameters;
+
+        private Constructor(Instantiator instantiator, Supplier<Parameter[]> parameters) {
+            this.instantiator = instantiator;
+            this.parameters = parameters;
+        }
+    }
+
+    public static final class Parameter {
+        private final BeanParameter beanParameter;
+
+        private Parameter(BeanParameter beanParameter) {
+            this.beanParameter = beanParameter;
+        }
+    }
+}
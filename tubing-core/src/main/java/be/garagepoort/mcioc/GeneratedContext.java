@@ -0,0 +1,14 @@
+package be.garagepoort.mcioc;
+
+/**
+ * Implemented by the {@code TubingGeneratedContext} classes which the {@link be.garagepoort.mcioc.processor.TubingBeanIndexProcessor}
+ * writes when compiling with {@code -Atubing.generateContext=true}.
+ * <p>
+ * A generated context registers the bean annotations and factories of the compiled beans, so the container creates them
+ * with direct constructor and provider calls instead of reflection. Beans which are not part of a generated context are
+ * still created reflectively.
+ */
+public interface GeneratedContext {
+
+    void register(GeneratedBeans beans);
+}
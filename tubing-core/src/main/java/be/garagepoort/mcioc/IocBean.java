@@ -14,4 +14,25 @@ public @interface IocBean {
     boolean priority() default false;
 
     Class multiproviderClass() default Object.class;
+
+    /**
+     * With {@code -Dtubing.parallel=true} beans are created in parallel where their dependencies allow it.
+     * Set this to true for beans which must be constructed on the thread enabling the plugin.
+     * Beans of other bean annotations and beans created by provider methods are always constructed on that thread.
+     */
+    boolean mainThread() default false;
+
+    /**
+     * Lazy beans are created the first time they are retrieved from the container.
+     * Beans depending on a lazy bean through an interface receive a proxy which creates the bean on the first method call.
+     */
+    boolean lazy() default false;
+
+    /**
+     * Async beans are created on a separate thread pool while the container creates the other beans, for beans doing slow I/O in their constructor.
+     * Beans depending on an async bean through an interface receive a proxy which waits for the bean on the first method call,
+     * beans which want to wait themselves can inject an {@link IocFuture} of the bean.
+     * The container waits for all async beans before the plugin is enabled, unless started with {@code -Dtubing.async.awaitOnStart=false}.
+     */
+    boolean async() default false;
 }
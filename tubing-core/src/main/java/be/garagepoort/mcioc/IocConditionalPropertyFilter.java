@@ -16,18 +16,24 @@ public class IocConditionalPropertyFilter {
             Annotation annotation = Arrays.stream(clazz.getAnnotations()).filter(a -> beanAnnotations.contains(a.annotationType())).findFirst()
                 .orElseThrow(() -> new RuntimeException("Invalid Tubing configuration. No bean annotation on class: " + clazz.getName()));
             String conditionalOnProperty = (String) annotation.annotationType().getMethod("conditionalOnProperty").invoke(annotation);
-
-            if (!isEmpty(conditionalOnProperty)) {
-                List<String> conditionSections = Arrays.stream(conditionalOnProperty.split("&&")).map(String::trim).collect(Collectors.toList());
-                return conditionSections.stream().allMatch(c -> isValid(configs, c));
-            }
-            return true;
+            return isValid(conditionalOnProperty, configs);
         } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException e) {
             throw new RuntimeException("Invalid bean configuration. not property found");
         }
     }
 
-    private boolean isValid(Map<String, FileConfiguration> configs, String conditionalOnProperty) {
+    /**
+     * Evaluates the conditionalOnProperty value of a bean annotation, an empty condition is always valid.
+     */
+    public boolean isValid(String conditionalOnProperty, Map<String, FileConfiguration> configs) {
+        if (!isEmpty(conditionalOnProperty)) {
+            List<String> conditionSections = Arrays.stream(conditionalOnProperty.split("&&")).map(String::trim).collect(Collectors.toList());
+            return conditionSections.stream().allMatch(c -> isValidCondition(configs, c));
+        }
+        return true;
+    }
+
+    private boolean isValidCondition(Map<String, FileConfiguration> configs, String conditionalOnProperty) {
         if (conditionalOnProperty.startsWith("isNotEmpty")) {
             String key = substringBetween(conditionalOnProperty, "(", ")");
 
@@ -1,15 +1,28 @@
 package be.garagepoort.mcioc;
 
+import be.garagepoort.mcioc.BeanFactory.BeanParameter;
+import be.garagepoort.mcioc.BeanMetadata.BeanAnnotation;
 import be.garagepoort.mcioc.configuration.ConfigProperty;
+import be.garagepoort.mcioc.configuration.ConfigurationBindings;
 import be.garagepoort.mcioc.configuration.ConfigurationLoader;
+import be.garagepoort.mcioc.configuration.ConfigurationPropertyTracker;
+import be.garagepoort.mcioc.configuration.ConfigurationWatcher;
 import be.garagepoort.mcioc.configuration.PropertyInjector;
 import be.garagepoort.mcioc.configuration.TubingPluginInjector;
+import be.garagepoort.mcioc.configuration.files.ConfigurationException;
 import be.garagepoort.mcioc.configuration.yaml.configuration.file.FileConfiguration;
-import be.garagepoort.mcioc.load.InjectTubingPlugin;
+import be.garagepoort.mcioc.index.BeanIndex;
+import be.garagepoort.mcioc.index.BeanIndexClassIndex;
+import be.garagepoort.mcioc.index.ClassIndex;
+import be.garagepoort.mcioc.index.ScanCache;
 import be.garagepoort.mcioc.load.TubingBeanAnnotationRegistrator;
+import be.garagepoort.mcioc.profiler.ContainerProfiler;
+import be.garagepoort.mcioc.profiler.ProfileEntry;
+import be.garagepoort.mcioc.profiler.ProfileEntry.Phase;
 import io.github.classgraph.ClassGraph;
 import io.github.classgraph.ScanResult;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -20,171 +33,482 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class IocContainer {
 
     private List<Class> beanAnnotations;
-    private final Map<Class, Object> beans = new HashMap<>();
+    private final Map<Class, Object> beans = new ConcurrentHashMap<>();
+    private final Map<Class, Set<Class<?>>> assignableBeans = new ConcurrentHashMap<>();
+    private final Map<Class, BeanNode> deferredBeans = new HashMap<>();
+    private final Map<Class, Set<Class<?>>> assignableDeferredBeans = new HashMap<>();
+    private final Map<Class, BeanNode> beanNodes = new LinkedHashMap<>();
+    private final Map<Class, BeanNode> beanNodesByType = new HashMap<>();
+    private final Map<Method, BeanNode> multiProviderNodes = new HashMap<>();
+    private final Set<Object> reusedBeans = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Class<?>> beansInCreation = new HashSet<>();
+    private final Set<Class<?>> resolvedBeanLists = new HashSet<>();
+    private final Executor asyncBeanExecutor = command -> getAsyncBeanExecutorService().execute(command);
+    private final BeanGraphExecutor beanGraphExecutor = new BeanGraphExecutor(ForkJoinPool.commonPool(), Boolean.parseBoolean(System.getProperty("tubing.parallel", "false")), asyncBeanExecutor);
+    private final BeanGraphExecutor lazyBeanGraphExecutor = new BeanGraphExecutor(ForkJoinPool.commonPool(), false, asyncBeanExecutor);
     private final IocConditionalPropertyFilter iocConditionalPropertyFilter = new IocConditionalPropertyFilter();
+    private final ContainerProfiler profiler = new ContainerProfiler();
+    private final Map<Class<?>, BeanMetadata> beanMetadata = new ConcurrentHashMap<>();
+    private GeneratedBeans generatedBeans = new GeneratedBeans();
+    private volatile FrozenBeans frozenBeans;
+    /**
+     * Guards registering beans against freezing the container, a bean registered while the lookups are copied would be lost.
+     * Beans are registered from the async bean threads while lazy beans are created under the container monitor, so this is a separate lock.
+     */
+    private final Object beansLock = new Object();
     private TubingPlugin tubingPlugin;
     private ConfigurationLoader configurationLoader;
+    private volatile Map<String, FileConfiguration> configurationFiles;
+    private final ConfigurationBindings configurationBindings = new ConfigurationBindings();
+    private ConfigurationWatcher configurationWatcher;
     private ScanResult scanResult;
+    private ClassIndex classIndex;
+    private ClassIndex beanClassIndex;
+    private ExecutorService asyncBeanExecutorService;
 
     public void init(TubingPlugin tubingPlugin) {
         try {
             this.tubingPlugin = tubingPlugin;
-            String pkg = tubingPlugin.getClass().getPackage().getName();
-            scanResult = new ClassGraph()
-                .enableAllInfo()
-                .acceptPackages(pkg)
-                .scan();
+            classIndex = loadClassIndex();
             beanAnnotations = new ArrayList<>();
-            for (Class<? extends TubingBeanAnnotationRegistrator> aClass : scanResult.getClassesImplementing(TubingBeanAnnotationRegistrator.class).loadClasses(TubingBeanAnnotationRegistrator.class)) {
+            for (Class<?> aClass : classIndex.getClassesImplementing(TubingBeanAnnotationRegistrator.class)) {
                 Constructor<?> declaredConstructor = aClass.getDeclaredConstructors()[0];
                 TubingBeanAnnotationRegistrator tubingBeanAnnotationRegistrator = (TubingBeanAnnotationRegistrator) declaredConstructor.newInstance();
                 beanAnnotations.addAll(tubingBeanAnnotationRegistrator.getAnnotations());
             }
-            loadIocBeans();
-        } catch (InstantiationException | InvocationTargetException | IllegalAccessException e) {
+            for (Class<?> aClass : classIndex.getClassesImplementing(GeneratedContext.class)) {
+                ((GeneratedContext) aClass.getConstructor().newInstance()).register(generatedBeans);
+            }
+            loadIocBeans(null);
+            startConfigurationWatcher();
+        } catch (InstantiationException | InvocationTargetException | IllegalAccessException | NoSuchMethodException e) {
             throw new RuntimeException("Tubing could not load the IOC container", e);
         }
     }
 
+    /**
+     * Initializes this container from a previous container of the same plugin.
+     * <p>
+     * The class index of the previous container is reused and its {@link ConfigurationLoader} reloads the configuration files in place.
+     * Beans are only recreated when a configuration property they read while being created has changed, when they are new
+     * (e.g. because a conditionalOnProperty result changed), or when one of their dependencies is recreated or resolves to a different bean.
+     * All other beans are taken over from the previous container.
+     */
+    public void reload(TubingPlugin tubingPlugin, IocContainer previous) {
+        long start = System.nanoTime();
+        previous.shutdown();
+        this.tubingPlugin = tubingPlugin;
+        this.classIndex = previous.classIndex;
+        this.beanAnnotations = previous.beanAnnotations;
+        this.generatedBeans = previous.generatedBeans;
+        loadIocBeans(previous);
+        startConfigurationWatcher();
+        tubingPlugin.getLogger().info("Reloaded IOC container in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms, kept " + reusedBeans.size() + " of " + beans.size() + " beans");
+    }
+
+    /**
+     * Whether the bean was taken over from the previous container by {@link #reload(TubingPlugin, IocContainer)}.
+     */
+    public boolean isReusedBean(Object bean) {
+        return reusedBeans.contains(bean);
+    }
+
+    private ClassIndex loadClassIndex() {
+        String pkg = tubingPlugin.getClass().getPackage().getName();
+        if (!Boolean.parseBoolean(System.getProperty("tubing.beanindex", "true"))) {
+            return indexScan();
+        }
+
+        long start = System.nanoTime();
+        long allocatedBytes = ContainerProfiler.getAllocatedBytes();
+        Optional<BeanIndexClassIndex> beanIndex = BeanIndexClassIndex.load(tubingPlugin.getPluginClassLoader(), pkg);
+        profiler.record("Bean index", Phase.CLASS_INDEX, start, allocatedBytes);
+        if (!beanIndex.isPresent() || !isComplete(beanIndex.get())) {
+            if (beanIndex.isPresent()) {
+                tubingPlugin.getLogger().warning("Tubing bean index is incomplete, falling back to classpath scanning. Make sure every " + BeanIndex.LOCATION + " is merged when shading the plugin jar");
+            }
+            return indexScan();
+        }
+        tubingPlugin.getLogger().info("Loaded tubing bean index in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms" + formatAllocatedBytes(allocatedBytes));
+
+        if (Boolean.getBoolean("tubing.beanindex.compare")) {
+            scan();
+        }
+        return beanIndex.get();
+    }
+
+    /**
+     * The index has to contain both tubing itself and the plugin, an index missing either was lost while shading the plugin
+     * jar or its classes were compiled without the annotation processor.
+     */
+    private boolean isComplete(BeanIndexClassIndex beanIndex) {
+        return beanIndex.containsClass(ConfigurationLoader.class) && beanIndex.containsClass(tubingPlugin.getClass());
+    }
+
+    /**
+     * Builds the class index from a classpath scan. The index extracted from the scan is cached in the plugin data folder
+     * unless {@code -Dtubing.scan.cache=false} is given.
+     */
+    private ClassIndex indexScan() {
+        ScanCache scanCache = Boolean.parseBoolean(System.getProperty("tubing.scan.cache", "true"))
+            ? ScanCache.forPlugin(tubingPlugin.getDataFolder(), tubingPlugin.getClass())
+            : null;
+        if (scanCache != null) {
+            long start = System.nanoTime();
+            long allocatedBytes = ContainerProfiler.getAllocatedBytes();
+            Optional<BeanIndex> cachedIndex = scanCache.read();
+            if (cachedIndex.isPresent()) {
+                profiler.record("Cached scan index", Phase.CLASS_INDEX, start, allocatedBytes);
+                tubingPlugin.getLogger().info("Loaded cached classpath scan in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms" + formatAllocatedBytes(allocatedBytes));
+                return BeanIndexClassIndex.of(cachedIndex.get(), tubingPlugin.getPluginClassLoader());
+            }
+        }
+
+        ScanResult scan = scan();
+        long start = System.nanoTime();
+        long allocatedBytes = ContainerProfiler.getAllocatedBytes();
+        BeanIndexClassIndex scannedIndex = BeanIndexClassIndex.fromScan(scan, tubingPlugin.getPluginClassLoader());
+        if (scanCache != null) {
+            try {
+                scanCache.write(scannedIndex.getBeanIndex());
+            } catch (IOException e) {
+                tubingPlugin.getLogger().warning("Could not cache the tubing classpath scan: " + e.getMessage());
+            }
+        }
+        profiler.record("Scan index", Phase.CLASS_INDEX, start, allocatedBytes);
+        return scannedIndex;
+    }
+
+    /**
+     * Scans the plugin package with {@code tubing.scan.threads} worker threads, defaulting to the number of processors.
+     */
+    private ScanResult scan() {
+        long start = System.nanoTime();
+        long allocatedBytes = ContainerProfiler.getAllocatedBytes();
+        int threads = Math.max(1, Integer.getInteger("tubing.scan.threads", Runtime.getRuntime().availableProcessors()));
+        List<Thread> workers = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executorService = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread worker = new Thread(runnable, "Tubing classpath scan - " + tubingPlugin.getName());
+            worker.setDaemon(true);
+            workers.add(worker);
+            return worker;
+        });
+        long workerAllocatedBytes;
+        try {
+            scanResult = new ClassGraph()
+                .enableAllInfo()
+                .addClassLoader(tubingPlugin.getPluginClassLoader())
+                .acceptPackages(tubingPlugin.getClass().getPackage().getName())
+                .scan(executorService, threads);
+            synchronized (workers) {
+                workerAllocatedBytes = workers.stream().mapToLong(ContainerProfiler::getAllocatedBytes).sum();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        long scanAllocatedBytes = allocatedBytes < 0 ? -1 : ContainerProfiler.getAllocatedBytes() - allocatedBytes + workerAllocatedBytes;
+        long duration = System.nanoTime() - start;
+        profiler.record(new ProfileEntry("ClassGraph scan", Phase.CLASS_INDEX, duration, scanAllocatedBytes));
+        tubingPlugin.getLogger().info("Scanned classpath for tubing beans in " + TimeUnit.NANOSECONDS.toMillis(duration) + "ms with " + threads
+            + (threads == 1 ? " thread" : " threads") + (scanAllocatedBytes < 0 ? "" : ", allocated " + scanAllocatedBytes / 1024 + "KB"));
+        return scanResult;
+    }
+
+    /**
+     * The memory allocated since {@link ContainerProfiler#getAllocatedBytes()} returned the given value, for the startup logs.
+     */
+    private static String formatAllocatedBytes(long allocatedBytesBefore) {
+        if (allocatedBytesBefore < 0) {
+            return "";
+        }
+        return ", allocated " + (ContainerProfiler.getAllocatedBytes() - allocatedBytesBefore) / 1024 + "KB";
+    }
+
+    /**
+     * The classes of the plugin, without the beans which are disabled by their conditionalOnProperty.
+     */
+    public ClassIndex getClassIndex() {
+        return beanClassIndex == null ? classIndex : beanClassIndex;
+    }
+
+    public ContainerProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Closes the classpath scan result once the container has booted. The {@link #getClassIndex()} holds everything the
+     * container and the bean loaders need, so there is no reason to keep the class metadata of the scan in memory.
+     */
+    public void releaseScanResult() {
+        if (scanResult != null) {
+            scanResult.close();
+            scanResult = null;
+        }
+    }
+
+    /**
+     * The container no longer keeps a classpath scan after booting. Use {@link #getClassIndex()} instead,
+     * calling this method will trigger a full classpath scan in that case.
+     */
+    @Deprecated
     public ScanResult getReflections() {
+        if (scanResult == null) {
+            scan();
+        }
         return scanResult;
     }
 
-    private void loadIocBeans() {
+    private void loadIocBeans(IocContainer previous) {
         try {
-            List<Class<?>> configurationClasses = scanResult.getClassesWithAnnotation(TubingConfiguration.class).loadClasses();
-            List<Method> providers = configurationClasses.stream().flatMap(c -> ReflectionUtils.getMethodsAnnotatedWith(c, IocBeanProvider.class).stream()).collect(Collectors.toList());
+            List<Class<?>> configurationClasses = classIndex.getClassesWithAnnotation(TubingConfiguration.class);
+            Map<Class<?>, List<Method>> providers = configurationClasses.stream().flatMap(c -> ReflectionUtils.getMethodsAnnotatedWith(c, IocBeanProvider.class).stream())
+                .collect(Collectors.groupingBy(Method::getReturnType, LinkedHashMap::new, Collectors.toList()));
             List<Method> multiProviders = configurationClasses.stream().flatMap(c -> ReflectionUtils.getMethodsAnnotatedWith(c, IocMultiProvider.class).stream()).collect(Collectors.toList());
 
-            Set<Class<?>> allBeans = new HashSet<>();
-            for (Class beanAnnotation : beanAnnotations) {
-                allBeans.addAll(new HashSet<>(scanResult.getClassesWithAnnotation(beanAnnotation).loadClasses()));
-            }
+            Map<String, Set<String>> beanConditions = getBeanConditions();
+            Set<String> conditionalBeans = beanConditions.entrySet().stream()
+                .filter(e -> !e.getValue().equals(Collections.singleton("")))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+            beanClassIndex = classIndex.excluding(conditionalBeans);
 
-            List<Class<?>> classesWithBeanAnnotations = allBeans.stream()
-                .sorted((o1, o2) -> {
-                    Annotation annotation1 = Arrays.stream(o1.getAnnotations()).filter(a -> beanAnnotations.contains(a.annotationType())).findFirst().get();
-                    Annotation annotation2 = Arrays.stream(o2.getAnnotations()).filter(a -> beanAnnotations.contains(a.annotationType())).findFirst().get();
-                    try {
-                        boolean priority1 = (boolean) annotation1.annotationType().getMethod("priority").invoke(annotation1);
-                        boolean priority2 = (boolean) annotation2.annotationType().getMethod("priority").invoke(annotation2);
-                        return Boolean.compare(priority2, priority1);
-                    } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException e) {
-                        throw new RuntimeException("Invalid bean configuration. not property found");
-                    }
-                })
+            List<Class<?>> classesWithBeanAnnotations = beanConditions.keySet().stream()
+                .filter(c -> !conditionalBeans.contains(c))
+                .map(classIndex::loadClass)
+                .sorted((o1, o2) -> Boolean.compare(isPriorityBean(o2), isPriorityBean(o1)))
                 .collect(Collectors.toList());
 
-            Set<Class<?>> providedBeans = providers.stream().map(Method::getReturnType).collect(Collectors.toCollection(LinkedHashSet::new));
+            Set<Class<?>> providedBeans = providers.keySet();
             Set<Class<?>> validBeans = Stream.concat(classesWithBeanAnnotations.stream(), providedBeans.stream()).collect(Collectors.toCollection(LinkedHashSet::new));
 
-            configurationLoader = (ConfigurationLoader) instantiateBean(scanResult, ConfigurationLoader.class, validBeans, providers, multiProviders, false);
-            classesWithBeanAnnotations = classesWithBeanAnnotations.stream()
-                .filter(a -> iocConditionalPropertyFilter.isValidBean(beanAnnotations, a, getConfigurationFiles()))
-                .collect(Collectors.toList());
+            BeanNode configurationLoaderNode = resolveBean(ConfigurationLoader.class, validBeans, providers, multiProviders, false);
+            if (previous != null) {
+                reuseBeans(previous, Collections.emptySet());
+            }
+            beanGraphExecutor.execute(Collections.singletonList(configurationLoaderNode));
+            configurationLoader = (ConfigurationLoader) configurationLoaderNode.getBean();
+            if (configurationLoaderNode.isReused()) {
+                configurationLoader.reload();
+            }
+            configurationLoader.getProfileEntries().forEach(profiler::record);
+            configurationFiles = configurationLoader.getConfigurationFiles();
+            Set<String> disabledBeans = new HashSet<>();
+            for (String conditionalBean : conditionalBeans) {
+                Optional<Class<?>> enabledBean = getEnabledBean(conditionalBean, beanConditions.get(conditionalBean));
+                if (enabledBean.isPresent()) {
+                    classesWithBeanAnnotations.add(enabledBean.get());
+                } else {
+                    disabledBeans.add(conditionalBean);
+                }
+            }
+            beanClassIndex = classIndex.excluding(disabledBeans);
+            classesWithBeanAnnotations.sort((o1, o2) -> Boolean.compare(isPriorityBean(o2), isPriorityBean(o1)));
             validBeans = Stream.concat(classesWithBeanAnnotations.stream(), providedBeans.stream()).collect(Collectors.toCollection(LinkedHashSet::new));
 
+            List<BeanNode> priorityBeans = new ArrayList<>();
+            List<BeanNode> otherBeans = new ArrayList<>();
             for (Class<?> aClass : validBeans) {
-                instantiateBean(scanResult, aClass, validBeans, providers, multiProviders, false);
+                BeanNode beanNode = resolveBean(aClass, validBeans, providers, multiProviders, false);
+                if (beanNode.isLazy() || beanNode.isAsync()) {
+                    deferredBeans.put(aClass, beanNode);
+                    indexBeanType(assignableDeferredBeans, aClass);
+                }
+                if (beanNode.isLazy()) {
+                    continue;
+                }
+                if (isPriorityBean(aClass)) {
+                    priorityBeans.add(beanNode);
+                } else {
+                    otherBeans.add(beanNode);
+                }
+            }
+            if (previous != null) {
+                reuseBeans(previous, ConfigurationPropertyTracker.getChangedProperties(previous.getConfigurationFiles(), getConfigurationFiles()));
+            }
+            beanGraphExecutor.execute(priorityBeans);
+            beanGraphExecutor.execute(otherBeans);
+            if (Boolean.parseBoolean(System.getProperty("tubing.async.awaitOnStart", "true"))) {
+                awaitAsyncBeans();
             }
 
             for (Class<?> configurationClass : configurationClasses) {
                 List<Method> afterMethods = ReflectionUtils.getMethodsAnnotatedWith(configurationClass, AfterIocLoad.class);
                 for (Method afterMethod : afterMethods) {
-                    List<Object> params = buildParams(configurationClass, scanResult, validBeans, providers, multiProviders, afterMethod.getParameterTypes(), afterMethod.getParameterAnnotations());
-                    afterMethod.invoke(null, params.toArray());
+                    BeanNode afterMethodNode = new BeanNode(configurationClass, true);
+                    BeanFactory afterMethodFactory = getMethodFactory(afterMethod);
+                    List<Supplier<Object>> params = buildParams(configurationClass, validBeans, providers, multiProviders, afterMethodFactory.getParameters(), afterMethodNode);
+                    beanGraphExecutor.execute(afterMethodNode.getDependencies());
+                    long start = System.nanoTime();
+                    long allocatedBytes = ContainerProfiler.getAllocatedBytes();
+                    afterMethodFactory.create(resolveParams(params));
+                    profiler.record(getMethodName(afterMethod), Phase.AFTER_IOC_LOAD, start, allocatedBytes);
                 }
             }
 
+            if (profiler.isEnabled()) {
+                getNodeKeys().keySet().forEach(n -> profiler.addDependencies(n.getName(), n.getDependencies().stream().map(BeanNode::getName).collect(Collectors.toList())));
+            }
+
         } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
             throw new IocException("Could not validate instantiate beans", e);
+        } finally {
+            shutdownAsyncBeanExecutorService();
         }
     }
 
-    private Object instantiateBean(ScanResult scanResult, Class<?> aClass, Set<Class<?>> validBeans, List<Method> providedBeans, List<Method> multiProviders, boolean multiProvider) throws InvocationTargetException, IllegalAccessException, NoSuchMethodException {
-        if (multiProvider) {
-            beans.putIfAbsent(aClass, new ArrayList<>());
-            Set<Class<?>> subTypesOf = scanResult.getClassesImplementing(aClass).loadClasses().stream().filter(validBeans::contains).collect(Collectors.toSet());
-            List list = (List) beans.get(aClass);
-            for (Class<?> subClass : subTypesOf) {
-                Object bean = createBean(scanResult, subClass, validBeans, providedBeans, multiProviders);
-                if (!list.contains(bean)) {
-                    list.add(bean);
-                }
+    private void awaitAsyncBeans() {
+        long start = System.nanoTime();
+        List<BeanNode> asyncBeans = deferredBeans.values().stream().filter(BeanNode::isAsync).collect(Collectors.toList());
+        for (BeanNode asyncBean : asyncBeans) {
+            asyncBean.awaitBean();
+        }
+        if (!asyncBeans.isEmpty()) {
+            tubingPlugin.getLogger().info("Waited " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms for " + asyncBeans.size() + " async tubing beans");
+        }
+    }
+
+    /**
+     * Async beans are created on daemon threads of a cached pool, so a slow bean never waits for a free thread.
+     * The pool is only created when the first async bean is started.
+     */
+    private synchronized ExecutorService getAsyncBeanExecutorService() {
+        if (asyncBeanExecutorService == null) {
+            asyncBeanExecutorService = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "Tubing async bean - " + tubingPlugin.getName());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return asyncBeanExecutorService;
+    }
+
+    /**
+     * Async beans which are still being created keep running, but the idle threads stop.
+     */
+    private synchronized void shutdownAsyncBeanExecutorService() {
+        if (asyncBeanExecutorService != null) {
+            asyncBeanExecutorService.shutdown();
+            asyncBeanExecutorService = null;
+        }
+    }
+
+    /**
+     * The conditionalOnProperty values of the bean annotations on every bean class, read from the class index without loading the classes.
+     */
+    private Map<String, Set<String>> getBeanConditions() {
+        Map<String, Set<String>> beanConditions = new LinkedHashMap<>();
+        for (Class beanAnnotation : beanAnnotations) {
+            Class<? extends Annotation> annotationType = beanAnnotation;
+            for (String className : classIndex.getClassNamesWithAnnotation(annotationType)) {
+                beanConditions.computeIfAbsent(className, k -> new HashSet<>()).add(classIndex.getConditionalOnProperty(annotationType, className));
             }
+        }
+        return beanConditions;
+    }
 
-            Collection<Object> beans = getMultiProvidedBeans(scanResult, aClass, validBeans, providedBeans, multiProviders);
-            list.addAll(beans);
+    /**
+     * Loads the bean class only when its condition holds. A class with several bean annotations with different conditions is loaded
+     * to find out which annotation is declared first.
+     */
+    private Optional<Class<?>> getEnabledBean(String className, Set<String> conditions) {
+        String conditionalOnProperty;
+        if (conditions.size() == 1) {
+            conditionalOnProperty = conditions.iterator().next();
+        } else {
+            conditionalOnProperty = getBeanAnnotation(classIndex.loadClass(className)).map(BeanAnnotation::getConditionalOnProperty).orElse("");
+        }
+        if (!iocConditionalPropertyFilter.isValid(conditionalOnProperty, getConfigurationFiles())) {
+            return Optional.empty();
+        }
+        return Optional.of(classIndex.loadClass(className));
+    }
 
-            return this.beans.get(aClass);
+    private BeanNode resolveBean(Class<?> aClass, Set<Class<?>> validBeans, Map<Class<?>, List<Method>> providedBeans, List<Method> multiProviders, boolean multiProvider) throws InvocationTargetException, IllegalAccessException, NoSuchMethodException {
+        if (multiProvider) {
+            List<Object> list = getBeanList(aClass);
+            BeanNode beanListNode = beanNodes.get(aClass);
+            if (resolvedBeanLists.add(aClass)) {
+                Set<Class<?>> subTypesOf = beanClassIndex.getClassesImplementing(aClass).stream().filter(validBeans::contains).collect(Collectors.toSet());
+                for (Class<?> subClass : subTypesOf) {
+                    BeanNode bean = createBean(subClass, validBeans, providedBeans, multiProviders);
+                    bean.addBeanList(list);
+                    beanListNode.addDependency(bean);
+                }
+
+                BeanNode multiProvidedBeans = getMultiProvidedBeans(aClass, list, validBeans, providedBeans, multiProviders);
+                if (multiProvidedBeans != null) {
+                    beanListNode.addDependency(multiProvidedBeans);
+                }
+            }
+            return beanListNode;
         }
 
-        if (aClass.isAnnotationPresent(IocMultiProvider.class)) {
-            Class[] multiClasses = aClass.getAnnotation(IocMultiProvider.class).value();
-            Object bean = createBean(scanResult, aClass, validBeans, providedBeans, multiProviders);
+        Class<?>[] multiClasses = getBeanMetadata(aClass).getMultiProviderClasses();
+        if (multiClasses != null) {
+            BeanNode bean = createBean(aClass, validBeans, providedBeans, multiProviders);
             for (Class multiClass : multiClasses) {
-                beans.putIfAbsent(multiClass, new ArrayList<>());
-                List list = (List) beans.get(multiClass);
-                if (!list.contains(bean) && bean != null) {
-                    list.add(bean);
-                }
+                bean.addBeanList(getBeanList(multiClass));
             }
             return bean;
         } else {
-            Optional<Annotation> first = Arrays.stream(aClass.getAnnotations())
-                    .filter(a1 -> beanAnnotations.contains(a1.annotationType())).findFirst();
+            Optional<BeanAnnotation> first = getBeanAnnotation(aClass);
             if (first.isPresent()) {
-                Annotation annotation = first.get();
-                Class multiproviderClass = (Class) annotation.annotationType().getMethod("multiproviderClass").invoke(annotation);
+                Class<?> multiproviderClass = first.get().getMultiproviderClass();
                 if (multiproviderClass != Object.class) {
-                    Object bean = createBean(scanResult, aClass, validBeans, providedBeans, multiProviders);
-                    beans.putIfAbsent(multiproviderClass, new ArrayList<>());
-                    List list = (List) beans.get(multiproviderClass);
-                    if (!list.contains(bean) && bean != null) {
-                        list.add(bean);
-                    }
+                    BeanNode bean = createBean(aClass, validBeans, providedBeans, multiProviders);
+                    bean.addBeanList(getBeanList(multiproviderClass));
                     return bean;
                 }
             }
         }
 
         if (aClass.isInterface()) {
-            Optional<Object> existingBean = beans.keySet().stream().filter(aClass::isAssignableFrom).map(beans::get).findFirst();
-            if (existingBean.isPresent()) {
-                return existingBean.get();
+            BeanNode existingBean = beanNodesByType.get(aClass);
+            if (existingBean != null) {
+                return existingBean;
             }
 
             // Check if provider can handle it
-            List<Method> currentProviders = providedBeans.stream().filter(p -> p.getReturnType() == aClass).collect(Collectors.toList());
+            List<Method> currentProviders = providedBeans.getOrDefault(aClass, Collections.emptyList());
             if (currentProviders.size() > 1) {
                 throw new IocException("Multiple bean providers found for interface " + aClass.getName() + ". This is currently not supported");
             }
             if (currentProviders.size() == 1) {
-                return createBean(scanResult, aClass, validBeans, providedBeans, multiProviders);
+                return createBean(aClass, validBeans, providedBeans, multiProviders);
             }
 
             // Find only implementation of interface and instantiate
-            Set<Class<?>> subTypes = scanResult.getClassesImplementing(aClass).loadClasses().stream()
+            Set<Class<?>> subTypes = beanClassIndex.getClassesImplementing(aClass).stream()
                 .filter(validBeans::contains)
                 .collect(Collectors.toSet());
 
             Set<Class<?>> subtypeNonConditional = subTypes.stream()
-                .filter(a -> !a.isAnnotationPresent(ConditionalOnMissingBean.class))
+                .filter(a -> !getBeanMetadata(a).isConditionalOnMissingBean())
                 .collect(Collectors.toSet());
 
             Set<Class<?>> subtypesOnMissing = subTypes.stream()
-                .filter(a -> a.isAnnotationPresent(ConditionalOnMissingBean.class))
+                .filter(a -> getBeanMetadata(a).isConditionalOnMissingBean())
                 .collect(Collectors.toSet());
 
             if (subTypes.isEmpty()) {
@@ -198,135 +522,512 @@ public class IocContainer {
             }
 
             Class<?> beanToCreate = subtypeNonConditional.isEmpty() ? subtypesOnMissing.iterator().next() : subtypeNonConditional.iterator().next();
-            return createBean(scanResult, beanToCreate, validBeans, providedBeans, multiProviders);
+            return createBean(beanToCreate, validBeans, providedBeans, multiProviders);
         }
-        return createBean(scanResult, aClass, validBeans, providedBeans, multiProviders);
+        return createBean(aClass, validBeans, providedBeans, multiProviders);
     }
 
-    private Object createBean(ScanResult scanResult, Class<?> aClass, Set<Class<?>> validBeans, List<Method> providers, List<Method> multiProviders) throws InvocationTargetException, IllegalAccessException, NoSuchMethodException {
-        if (beans.containsKey(aClass)) {
-            return beans.get(aClass);
+    private BeanNode createBean(Class<?> aClass, Set<Class<?>> validBeans, Map<Class<?>, List<Method>> providers, List<Method> multiProviders) throws InvocationTargetException, IllegalAccessException, NoSuchMethodException {
+        if (beanNodes.containsKey(aClass)) {
+            return beanNodes.get(aClass);
         }
-
-        Optional<Method> beanProvider = providers.stream().filter(p -> p.getReturnType() == aClass).findFirst();
-        if (beanProvider.isPresent()) {
-            return getProvidedBean(scanResult, aClass, validBeans, providers, multiProviders);
+        if (!beansInCreation.add(aClass)) {
+            throw new IocException("Cannot instantiate bean with type " + aClass.getName() + ". Circular dependency detected");
         }
 
-        if (Arrays.stream(aClass.getAnnotations()).noneMatch(a -> beanAnnotations.contains(a.annotationType())) && providers.stream().map(Method::getReturnType).noneMatch(a -> a == aClass)) {
-            throw new IocException("Cannot instantiate bean. No Bean annotation present. [" + aClass.getName() + "]");
-        }
+        try {
+            List<Method> beanProviders = providers.getOrDefault(aClass, Collections.emptyList());
+            if (!beanProviders.isEmpty()) {
+                return getProvidedBean(aClass, beanProviders.get(0), validBeans, providers, multiProviders);
+            }
 
-        if (!validBeans.contains(aClass)) {
-            throw new IocException("Cannot instantiate bean. No bean found for : [" + aClass + "]");
-        }
+            if (!getBeanAnnotation(aClass).isPresent()) {
+                throw new IocException("Cannot instantiate bean. No Bean annotation present. [" + aClass.getName() + "]");
+            }
 
-        Constructor<?>[] declaredConstructors = aClass.getDeclaredConstructors();
-        if (declaredConstructors.length > 1) {
-            throw new IocException("Cannot instantiate bean with type " + aClass.getName() + ". Only one constructor should be defined");
-        }
+            if (!validBeans.contains(aClass)) {
+                throw new IocException("Cannot instantiate bean. No bean found for : [" + aClass + "]");
+            }
 
-//        tubingPlugin.getLogger().info("[MC-IOC] Start creation of bean [" + aClass.getName() + "]");
-        Constructor<?> declaredConstructor = aClass.getDeclaredConstructors()[0];
-        List<Object> constructorParams = buildParams(aClass, scanResult, validBeans, providers, multiProviders, declaredConstructor.getParameterTypes(), declaredConstructor.getParameterAnnotations());
+            boolean mainThreadBean = isMainThreadBean(aClass);
+            boolean lazyBean = isLazyBean(aClass);
+            boolean asyncBean = isAsyncBean(aClass);
+            if (asyncBean && (mainThreadBean || lazyBean)) {
+                throw new IocException("Cannot instantiate bean with type " + aClass.getName() + ". An async bean cannot be lazy or created on the main thread");
+            }
 
-        try {
-//            tubingPlugin.getLogger().info("[MC-IOC] Creating new bean [" + aClass.getName() + "] with constructor arguments [" + constructorParams.stream().map(d -> d.getClass().getName()).collect(Collectors.joining(",")) + "]");
-            Object bean = declaredConstructor.newInstance(constructorParams.toArray());
-            PropertyInjector.injectConfigurationProperties(bean, getConfigurationFiles());
-            TubingPluginInjector.inject(bean, tubingPlugin);
-            beans.putIfAbsent(aClass, bean);
-            return bean;
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-            throw new IocException("Cannot instantiate bean with type " + aClass.getName() + ".", e);
+            BeanFactory beanFactory = getConstructorFactory(aClass);
+            BeanNode beanNode = new BeanNode(aClass, mainThreadBean, lazyBean, asyncBean);
+            List<Supplier<Object>> constructorParams = buildParams(aClass, validBeans, providers, multiProviders, beanFactory.getParameters(), beanNode);
+
+            beanNode.setFactory(() -> {
+                Object bean = profiler.profile(beanNode.getName(), Phase.CONSTRUCTOR, () -> {
+                    try {
+                        return beanFactory.create(resolveParams(constructorParams));
+                    } catch (InvocationTargetException e) {
+                        throw new IocException("Cannot instantiate bean with type " + aClass.getName() + ".", e);
+                    }
+                });
+                profiler.profile(beanNode.getName(), Phase.CONFIG_INJECTION, () -> {
+                    configurationBindings.inject(bean, getConfigurationFiles());
+                    TubingPluginInjector.inject(bean, tubingPlugin);
+                });
+                return bean;
+            });
+            beanNode.setRegistration(bean -> putBeanIfAbsent(aClass, bean));
+            addBeanNode(aClass, beanNode);
+            return beanNode;
+        } finally {
+            beansInCreation.remove(aClass);
         }
     }
 
     private Map<String, FileConfiguration> getConfigurationFiles() {
-        if (configurationLoader == null) {
+        if (configurationFiles == null) {
             return Collections.emptyMap();
         }
-        return configurationLoader.getConfigurationFiles();
+        return configurationFiles;
+    }
+
+    private void reuseBeans(IocContainer previous, Set<String> changedProperties) {
+        Map<BeanNode, Object> nodeKeys = getNodeKeys();
+        Map<Object, BeanNode> previousNodes = previous.getNodes();
+        Map<BeanNode, Boolean> reusable = new HashMap<>();
+        for (BeanNode beanNode : nodeKeys.keySet()) {
+            reuseBean(beanNode, nodeKeys, previousNodes, previous.getNodeKeys(), changedProperties, reusable, previous.configurationBindings);
+        }
     }
 
-    private Object getProvidedBean(ScanResult scanResult, Class<?> aClass, Set<Class<?>> validBeans, List<Method> providers, List<Method> multiProviders) throws InvocationTargetException, IllegalAccessException, NoSuchMethodException {
-        Optional<Method> beanProvider = providers.stream().filter(p -> p.getReturnType() == aClass).findFirst();
-        if (beanProvider.isPresent()) {
-            List<Object> params = buildParams(aClass, scanResult, validBeans, providers, multiProviders, beanProvider.get().getParameterTypes(), beanProvider.get().getParameterAnnotations());
-            Object invoke = beanProvider.get().invoke(null, params.toArray());
-            if (invoke != null) {
-                beans.putIfAbsent(beanProvider.get().getReturnType(), invoke);
-                return invoke;
+    private boolean reuseBean(BeanNode beanNode, Map<BeanNode, Object> nodeKeys, Map<Object, BeanNode> previousNodes, Map<BeanNode, Object> previousNodeKeys, Set<String> changedProperties, Map<BeanNode, Boolean> reusable, ConfigurationBindings previousBindings) {
+        if (beanNode.isRegistered()) {
+            return beanNode.isReused();
+        }
+        Boolean reuse = reusable.get(beanNode);
+        if (reuse != null) {
+            return reuse;
+        }
+
+        boolean dependenciesReused = true;
+        for (BeanNode dependency : beanNode.getDependencies()) {
+            dependenciesReused &= reuseBean(dependency, nodeKeys, previousNodes, previousNodeKeys, changedProperties, reusable, previousBindings);
+        }
+
+        BeanNode previousNode = previousNodes.get(nodeKeys.get(beanNode));
+        reuse = dependenciesReused
+            && previousNode != null
+            && previousNode.isRegistered()
+            && !beanNode.hasLazyDependencies()
+            && !ConfigurationPropertyTracker.isAffected(previousNode.getConfigurationProperties(), changedProperties)
+            && getDependencyKeys(beanNode, nodeKeys).equals(getDependencyKeys(previousNode, previousNodeKeys));
+        if (reuse) {
+            beanNode.reuse(previousNode);
+            if (previousNode.getBean() != null) {
+                reusedBeans.add(previousNode.getBean());
+                configurationBindings.inherit(previousBindings, previousNode.getBean());
             }
         }
-        return null;
+        reusable.put(beanNode, reuse);
+        return reuse;
+    }
+
+    private List<Object> getDependencyKeys(BeanNode beanNode, Map<BeanNode, Object> nodeKeys) {
+        return beanNode.getDependencies().stream().map(nodeKeys::get).collect(Collectors.toList());
+    }
+
+    /**
+     * Bean nodes are identified by the class they were registered with, multi provider methods by the method itself.
+     */
+    private Map<Object, BeanNode> getNodes() {
+        Map<Object, BeanNode> nodes = new HashMap<>(beanNodes);
+        nodes.putAll(multiProviderNodes);
+        return nodes;
+    }
+
+    private Map<BeanNode, Object> getNodeKeys() {
+        Map<BeanNode, Object> nodeKeys = new IdentityHashMap<>();
+        getNodes().forEach((key, beanNode) -> nodeKeys.put(beanNode, key));
+        return nodeKeys;
+    }
+
+    private BeanNode getProvidedBean(Class<?> aClass, Method beanProvider, Set<Class<?>> validBeans, Map<Class<?>, List<Method>> providers, List<Method> multiProviders) throws InvocationTargetException, IllegalAccessException, NoSuchMethodException {
+        BeanNode beanNode = new BeanNode(aClass, true);
+        BeanFactory beanFactory = getMethodFactory(beanProvider);
+        List<Supplier<Object>> params = buildParams(aClass, validBeans, providers, multiProviders, beanFactory.getParameters(), beanNode);
+
+        beanNode.setName(aClass.getName() + " (" + getMethodName(beanProvider) + ")");
+        beanNode.setFactory(() -> profiler.profile(beanNode.getName(), Phase.PROVIDER, () -> beanFactory.create(resolveParams(params))));
+        beanNode.setRegistration(bean -> {
+            if (bean != null) {
+                putBeanIfAbsent(beanProvider.getReturnType(), bean);
+            }
+        });
+        addBeanNode(aClass, beanNode);
+        return beanNode;
     }
 
-    private Collection<Object> getMultiProvidedBeans(ScanResult scanResult, Class<?> aClass, Set<Class<?>> validBeans, List<Method> providers, List<Method> multiProviders) throws InvocationTargetException, IllegalAccessException, NoSuchMethodException {
+    private BeanNode getMultiProvidedBeans(Class<?> aClass, List<Object> list, Set<Class<?>> validBeans, Map<Class<?>, List<Method>> providers, List<Method> multiProviders) throws InvocationTargetException, IllegalAccessException, NoSuchMethodException {
         Optional<Method> beanProvider = multiProviders.stream().filter(p -> {
             Class[] multiProvidedClasses = p.getAnnotation(IocMultiProvider.class).value();
             return Arrays.asList(multiProvidedClasses).contains(aClass);
         }).findFirst();
 
-        if (beanProvider.isPresent()) {
-            List<Object> params = buildParams(aClass, scanResult, validBeans, providers, multiProviders, beanProvider.get().getParameterTypes(), beanProvider.get().getParameterAnnotations());
-            Collection invoke = (Collection) beanProvider.get().invoke(null, params.toArray());
-            multiProviders.remove(beanProvider.get());
-            return invoke == null ? Collections.emptyList() : invoke;
+        if (!beanProvider.isPresent()) {
+            return null;
         }
-        return Collections.emptyList();
+        multiProviders.remove(beanProvider.get());
+
+        BeanNode beanNode = new BeanNode(aClass, true);
+        BeanFactory beanFactory = getMethodFactory(beanProvider.get());
+        List<Supplier<Object>> params = buildParams(aClass, validBeans, providers, multiProviders, beanFactory.getParameters(), beanNode);
+
+        beanNode.setName(getMethodName(beanProvider.get()));
+        beanNode.setFactory(() -> {
+            Collection invoke = (Collection) profiler.profile(beanNode.getName(), Phase.PROVIDER, () -> beanFactory.create(resolveParams(params)));
+            return invoke == null ? Collections.emptyList() : invoke;
+        });
+        beanNode.setRegistration(bean -> list.addAll((Collection) bean));
+        multiProviderNodes.put(beanProvider.get(), beanNode);
+        return beanNode;
     }
 
-    private List<Object> buildParams(Class<?> aClass, ScanResult scanResult, Set<Class<?>> validBeans, List<Method> providedBeans, List<Method> multiProviders, Class<?>[] parameterTypes, Annotation[][] parameterAnnotations) throws InvocationTargetException, IllegalAccessException, NoSuchMethodException {
-        List<Object> constructorParams = new ArrayList<>();
+    private static String getMethodName(Method method) {
+        return method.getDeclaringClass().getName() + "#" + method.getName();
+    }
 
-        for (int i = 0; i < parameterTypes.length; i++) {
-            Class<?> classParam = parameterTypes[i];
-            Annotation[] annotations = parameterAnnotations[i];
-            Optional<Annotation> multiAnnotation = Arrays.stream(annotations).filter(a -> a.annotationType().equals(IocMulti.class)).findFirst();
+    private List<Object> getBeanList(Class<?> aClass) {
+        if (!beans.containsKey(aClass)) {
+            putBeanIfAbsent(aClass, new ArrayList<>());
+        }
+        List<Object> list = (List<Object>) beans.get(aClass);
+        if (!beanNodes.containsKey(aClass)) {
+            BeanNode beanListNode = new BeanNode(aClass, false);
+            beanListNode.setName("List<" + aClass.getName() + ">");
+            beanListNode.setFactory(() -> list);
+            beanListNode.setRegistration(bean -> {
+            });
+            addBeanNode(aClass, beanListNode);
+        }
+        return list;
+    }
 
-            Optional<ConfigProperty> configAnnotation = Arrays.stream(annotations)
-                .filter(a -> a.annotationType().equals(ConfigProperty.class))
-                .map(a -> (ConfigProperty) a).findFirst();
-            Optional<InjectTubingPlugin> tubingPluginAnnotation = Arrays.stream(annotations)
-                .filter(a -> a.annotationType().equals(InjectTubingPlugin.class))
-                .map(a -> (InjectTubingPlugin) a).findFirst();
+    private List<Supplier<Object>> buildParams(Class<?> aClass, Set<Class<?>> validBeans, Map<Class<?>, List<Method>> providedBeans, List<Method> multiProviders, BeanParameter[] parameters, BeanNode beanNode) throws InvocationTargetException, IllegalAccessException, NoSuchMethodException {
+        List<Supplier<Object>> constructorParams = new ArrayList<>(parameters.length);
 
-            if (tubingPluginAnnotation.isPresent()) {
-                constructorParams.add(tubingPlugin);
-            } else if (configAnnotation.isPresent()) {
-                Object property = PropertyInjector.getConstructorConfigurationProperty(aClass, classParam, annotations, getConfigurationFiles());
-                constructorParams.add(property);
-            } else if (multiAnnotation.isPresent()) {
-                IocMulti iocMulti = (IocMulti) multiAnnotation.get();
-                constructorParams.add(instantiateBean(scanResult, iocMulti.value(), validBeans, providedBeans, multiProviders, true));
-            } else {
-                Object o = instantiateBean(scanResult, classParam, validBeans, providedBeans, multiProviders, false);
-                constructorParams.add(o);
+        for (BeanParameter parameter : parameters) {
+            switch (parameter.getKind()) {
+                case TUBING_PLUGIN:
+                    constructorParams.add(() -> tubingPlugin);
+                    break;
+                case CONFIG_PROPERTY:
+                    constructorParams.add(() -> PropertyInjector.getConstructorConfigurationProperty(aClass, parameter.getType(), parameter.getAnnotations(), getConfigurationFiles()));
+                    break;
+                case CONFIG_INTERFACE:
+                    constructorParams.add(() -> configurationLoader.getConfigInterface(parameter.getType()));
+                    break;
+                case MULTI:
+                    BeanNode beanList = resolveBean(parameter.getBeanType(), validBeans, providedBeans, multiProviders, true);
+                    beanNode.addDependency(beanList);
+                    constructorParams.add(beanList::getBean);
+                    break;
+                case FUTURE:
+                    BeanNode futureBean = resolveBean(parameter.getBeanType(), validBeans, providedBeans, multiProviders, false);
+                    if (futureBean.isAsync()) {
+                        beanNode.addLazyDependency();
+                        constructorParams.add(() -> new IocFuture<>(futureBean.getType(), futureBean.getAsyncBean()));
+                    } else {
+                        beanNode.addDependency(futureBean);
+                        constructorParams.add(() -> IocFuture.completed(futureBean.getType(), futureBean.getBean()));
+                    }
+                    break;
+                default:
+                    BeanNode bean = resolveBean(parameter.getBeanType(), validBeans, providedBeans, multiProviders, false);
+                    if ((bean.isLazy() || bean.isAsync()) && parameter.getType().isInterface()) {
+                        beanNode.addLazyDependency();
+                        Object lazyBean = LazyBeanProxy.create(bean.getType(), parameter.getType(), () -> bean.isAsync() ? bean.awaitBean() : createLazyBean(bean));
+                        constructorParams.add(() -> bean.isRegistered() ? bean.getBean() : lazyBean);
+                    } else {
+                        beanNode.addDependency(bean);
+                        constructorParams.add(bean.isAsync() ? bean::awaitBean : bean::getBean);
+                    }
             }
         }
         return constructorParams;
     }
 
+    private Object[] resolveParams(List<Supplier<Object>> params) {
+        return params.stream().map(Supplier::get).toArray();
+    }
+
+    private BeanFactory getConstructorFactory(Class<?> aClass) {
+        BeanFactory generatedFactory = generatedBeans.getConstructor(aClass);
+        return generatedFactory != null ? generatedFactory : BeanFactory.forConstructor(aClass);
+    }
+
+    private BeanFactory getMethodFactory(Method method) {
+        BeanFactory generatedFactory = generatedBeans.getProvider(method);
+        return generatedFactory != null ? generatedFactory : BeanFactory.forMethod(method);
+    }
+
+    private BeanMetadata getBeanMetadata(Class<?> aClass) {
+        return beanMetadata.computeIfAbsent(aClass, c -> {
+            BeanMetadata generatedMetadata = generatedBeans.getMetadata(c);
+            return generatedMetadata != null ? generatedMetadata : BeanMetadata.read(c, beanAnnotations);
+        });
+    }
+
+    private Optional<BeanAnnotation> getBeanAnnotation(Class<?> aClass) {
+        return getBeanMetadata(aClass).getBeanAnnotation(beanAnnotations);
+    }
+
+    private boolean isPriorityBean(Class<?> aClass) {
+        return getBeanAnnotation(aClass).map(BeanAnnotation::isPriority).orElse(false);
+    }
+
+    private boolean isLazyBean(Class<?> aClass) {
+        if (getBeanMetadata(aClass).getMultiProviderClasses() != null) {
+            return false;
+        }
+        return getBeanAnnotation(aClass)
+            .map(a -> a.getMultiproviderClass() == Object.class && a.isLazy())
+            .orElse(false);
+    }
+
+    private boolean isAsyncBean(Class<?> aClass) {
+        if (getBeanMetadata(aClass).getMultiProviderClasses() != null) {
+            return false;
+        }
+        return getBeanAnnotation(aClass)
+            .map(a -> a.getMultiproviderClass() == Object.class && a.isAsync())
+            .orElse(false);
+    }
+
+    /**
+     * Lazy beans are created sequentially on the calling thread, so a lazy bean using another lazy bean in its constructor cannot deadlock.
+     */
+    private synchronized Object createLazyBean(BeanNode beanNode) {
+        if (!beanNode.isRegistered()) {
+            lazyBeanGraphExecutor.execute(Collections.singletonList(beanNode));
+        }
+        return beanNode.getBean();
+    }
+
+    /**
+     * Only {@link IocBean}s can be created in parallel, beans of other annotations like listeners and commands are often
+     * registered with the platform in their constructor and are created on the main thread unless they are async.
+     */
+    private boolean isMainThreadBean(Class<?> aClass) {
+        return getBeanAnnotation(aClass)
+            .map(a -> a.isMainThread() || (a.getAnnotationType() != IocBean.class && !a.isAsync()))
+            .orElse(false);
+    }
+
+    /**
+     * Replaces the bean lookups by immutable copies once the container has started, so beans can be retrieved from any
+     * thread without locking. Beans registered afterwards, including lazy beans, are added to the overflow of the frozen
+     * lookups, see {@link FrozenClassMap#with(Map)}, and merged into the tables when the container is frozen after a reload.
+     */
+    public void freeze() {
+        synchronized (beansLock) {
+            if (frozenBeans != null) {
+                return;
+            }
+            frozenBeans = new FrozenBeans(FrozenClassMap.of(beans), FrozenClassMap.of(copyBeanTypes(assignableBeans)),
+                FrozenClassMap.of(deferredBeans), FrozenClassMap.of(copyBeanTypes(assignableDeferredBeans)));
+            beans.clear();
+            assignableBeans.clear();
+        }
+    }
+
+    /**
+     * Watches the configuration files when started with {@code -Dtubing.config.watch=true}.
+     */
+    private void startConfigurationWatcher() {
+        if (!Boolean.parseBoolean(System.getProperty("tubing.config.watch", "false")) || configurationLoader == null) {
+            return;
+        }
+        try {
+            configurationWatcher = configurationLoader.watch(tubingPlugin.getMainThreadExecutor(), this::applyConfigurationChanges);
+        } catch (ConfigurationException e) {
+            tubingPlugin.getLogger().log(Level.WARNING, "Configuration changes are only applied on reload", e);
+        }
+    }
+
+    /**
+     * Injects the changed configuration properties in the {@link ConfigProperty} fields and setters which read them.
+     * Beans which read a changed property in their constructor or through the configuration files only see the change after a reload.
+     */
+    private void applyConfigurationChanges(Set<String> changedProperties) {
+        long start = System.nanoTime();
+        configurationFiles = configurationLoader.getConfigurationFiles();
+        configurationBindings.apply(changedProperties, configurationFiles, tubingPlugin.getLogger());
+        List<String> outdatedBeans = getNodeKeys().keySet().stream()
+            .filter(n -> n.getBean() != null && !isApplied(n, changedProperties))
+            .map(BeanNode::getName)
+            .sorted()
+            .collect(Collectors.toList());
+        tubingPlugin.getLogger().info("Applied configuration changes in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        if (!outdatedBeans.isEmpty()) {
+            tubingPlugin.getLogger().warning("Reload to apply the configuration changes to " + String.join(", ", outdatedBeans));
+        }
+    }
+
+    private boolean isApplied(BeanNode beanNode, Set<String> changedProperties) {
+        Set<String> boundProperties = configurationBindings.getBoundProperties(beanNode.getBean());
+        for (String readProperty : beanNode.getConfigurationProperties()) {
+            if (!boundProperties.contains(readProperty) && ConfigurationPropertyTracker.isAffected(Collections.singleton(readProperty), changedProperties)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops watching the configuration files. The beans of the container can still be used.
+     */
+    public void shutdown() {
+        if (configurationWatcher != null) {
+            configurationWatcher.close();
+            configurationWatcher = null;
+        }
+    }
+
+    public boolean isFrozen() {
+        return frozenBeans != null;
+    }
+
     public void registerBean(Object o) {
-        beans.put(o.getClass(), o);
+        addBean(o.getClass(), o, true);
+    }
+
+    private void putBeanIfAbsent(Class<?> beanType, Object bean) {
+        addBean(beanType, bean, false);
+    }
+
+    private void addBean(Class<?> beanType, Object bean, boolean replace) {
+        synchronized (beansLock) {
+            if (frozenBeans == null) {
+                Object previousBean = replace ? beans.put(beanType, bean) : beans.putIfAbsent(beanType, bean);
+                if (previousBean == null) {
+                    indexBeanType(assignableBeans, beanType);
+                }
+                return;
+            }
+            FrozenBeans frozen = frozenBeans;
+            Object previousBean = frozen.beans.get(beanType);
+            if (previousBean == bean || (!replace && previousBean != null)) {
+                return;
+            }
+            Map<Class, Set<Class<?>>> beanTypes = new HashMap<>();
+            if (previousBean == null) {
+                for (Class<?> superType : ReflectionUtils.getSuperTypes(beanType)) {
+                    Set<Class<?>> types = new LinkedHashSet<>(frozen.assignableBeans.getOrDefault(superType, Collections.emptySet()));
+                    types.add(beanType);
+                    beanTypes.put(superType, Collections.unmodifiableSet(types));
+                }
+            }
+            frozenBeans = new FrozenBeans(frozen.beans.with(Collections.singletonMap(beanType, bean)), frozen.assignableBeans.with(beanTypes),
+                frozen.deferredBeans, frozen.assignableDeferredBeans);
+        }
+    }
+
+    private static Map<Class, Set<Class<?>>> copyBeanTypes(Map<Class, Set<Class<?>>> beanTypes) {
+        Map<Class, Set<Class<?>>> copy = new HashMap<>();
+        beanTypes.forEach((type, types) -> copy.put(type, Collections.unmodifiableSet(new LinkedHashSet<>(types))));
+        return copy;
+    }
+
+    /**
+     * Keeps track of every supertype and interface of a registered bean, so that retrieving beans by interface is a single lookup.
+     */
+    private void indexBeanType(Map<Class, Set<Class<?>>> index, Class<?> beanType) {
+        for (Class<?> superType : ReflectionUtils.getSuperTypes(beanType)) {
+            index.computeIfAbsent(superType, k -> ConcurrentHashMap.newKeySet()).add(beanType);
+        }
+    }
+
+    private void addBeanNode(Class<?> beanType, BeanNode beanNode) {
+        beanNodes.put(beanType, beanNode);
+        for (Class<?> superType : ReflectionUtils.getSuperTypes(beanType)) {
+            beanNodesByType.putIfAbsent(superType, beanNode);
+        }
     }
 
     public <T> T get(Class<T> clazz) {
         if (clazz.isInterface()) {
-            List<Object> collect = beans.keySet().stream().filter(clazz::isAssignableFrom).map(beans::get).collect(Collectors.toList());
-            if (collect.size() > 1) {
+            FrozenBeans frozen = frozenBeans;
+            Set<Class<?>> beanTypes = frozen == null ? assignableBeans.getOrDefault(clazz, Collections.emptySet()) : frozen.assignableBeans.getOrDefault(clazz, Collections.emptySet());
+            Set<Class<?>> deferredBeanTypes = frozen == null ? assignableDeferredBeans.get(clazz) : frozen.assignableDeferredBeans.get(clazz);
+            if (deferredBeanTypes != null) {
+                beanTypes = new HashSet<>(beanTypes);
+                beanTypes.addAll(deferredBeanTypes);
+            }
+            if (beanTypes.size() > 1) {
                 throw new IocException("Cannot retrieve bean with interface " + clazz.getName() + ". Too many implementations registered. Use `getList` to retrieve a list of all beans");
             }
-            if (collect.isEmpty()) {
+            if (beanTypes.isEmpty()) {
                 throw new IocException("Cannot retrieve bean with interface " + clazz.getName() + ". No implementation registered");
             }
-            return (T) collect.get(0);
+            return (T) getBean(beanTypes.iterator().next());
+        }
+        return (T) getBean(clazz);
+    }
+
+    /**
+     * Returns the bean of the given class without creating it if it is a lazy bean, or waiting for it if it is an async bean.
+     * A lazy or async bean which is not created yet is returned as a proxy implementing all public interfaces of the bean class.
+     * The bean is created, or waited for, the first time a method is called on the proxy.
+     */
+    public Object getLazy(Class<?> clazz) {
+        BeanNode deferredBean = getDeferredBeanNode(clazz);
+        if (deferredBean != null && !deferredBean.isRegistered()) {
+            return LazyBeanProxy.create(clazz, clazz, () -> getDeferredBean(deferredBean));
         }
-        return (T) beans.get(clazz);
+        return getRegisteredBean(clazz);
+    }
+
+    private Object getBean(Class<?> clazz) {
+        Object bean = getRegisteredBean(clazz);
+        if (bean == null) {
+            BeanNode deferredBean = getDeferredBeanNode(clazz);
+            if (deferredBean != null) {
+                return getDeferredBean(deferredBean);
+            }
+        }
+        return bean;
+    }
+
+    private Object getDeferredBean(BeanNode beanNode) {
+        return beanNode.isAsync() ? beanNode.awaitBean() : createLazyBean(beanNode);
+    }
+
+    private Object getRegisteredBean(Class<?> clazz) {
+        FrozenBeans frozen = frozenBeans;
+        return frozen == null ? beans.get(clazz) : frozen.beans.get(clazz);
+    }
+
+    private BeanNode getDeferredBeanNode(Class<?> clazz) {
+        FrozenBeans frozen = frozenBeans;
+        return frozen == null ? deferredBeans.get(clazz) : frozen.deferredBeans.get(clazz);
     }
 
     public <T> List<T> getList(Class<T> clazz) {
-        return (List<T>) beans.get(clazz);
+        return (List<T>) getRegisteredBean(clazz);
+    }
+
+    /**
+     * The bean lookups of a frozen container. A new instance is published for every bean registered after freezing.
+     */
+    private static final class FrozenBeans {
+        private final FrozenClassMap<Object> beans;
+        private final FrozenClassMap<Set<Class<?>>> assignableBeans;
+        private final FrozenClassMap<BeanNode> deferredBeans;
+        private final FrozenClassMap<Set<Class<?>>> assignableDeferredBeans;
+
+        private FrozenBeans(FrozenClassMap<Object> beans, FrozenClassMap<Set<Class<?>>> assignableBeans, FrozenClassMap<BeanNode> deferredBeans, FrozenClassMap<Set<Class<?>>> assignableDeferredBeans) {
+            this.beans = beans;
+            this.assignableBeans = assignableBeans;
+            this.deferredBeans = deferredBeans;
+            this.assignableDeferredBeans = assignableDeferredBeans;
+        }
     }
 }
@@ -0,0 +1,70 @@
+package be.garagepoort.mcioc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * A bean which might still be in creation, see {@link IocBean#async()}.
+ * <p>
+ * Inject {@code IocFuture<MyBean>} instead of {@code MyBean} to receive the bean without waiting for it.
+ * For beans which are not async the future is already completed.
+ */
+public final class IocFuture<T> {
+
+    private final Class<?> beanType;
+    private final CompletableFuture<Object> future;
+
+    IocFuture(Class<?> beanType, CompletableFuture<Object> future) {
+        this.beanType = beanType;
+        this.future = future;
+    }
+
+    static <T> IocFuture<T> completed(Class<?> beanType, Object bean) {
+        return new IocFuture<>(beanType, CompletableFuture.completedFuture(bean));
+    }
+
+    /**
+     * Waits for the bean to be created.
+     *
+     * @throws IocException when creating the bean failed
+     */
+    public T get() {
+        try {
+            return (T) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IocException("Interrupted while waiting for async bean " + beanType.getName(), e);
+        } catch (ExecutionException e) {
+            throw asIocException(beanType, e.getCause());
+        }
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * Runs the action with the bean once it is created, on the thread which created the bean or on the calling thread if it already exists.
+     * The action is not run when creating the bean failed.
+     */
+    public void whenReady(Consumer<T> action) {
+        future.thenAccept(bean -> action.accept((T) bean));
+    }
+
+    public CompletionStage<T> toCompletionStage() {
+        return future.thenApply(bean -> (T) bean);
+    }
+
+    static IocException asIocException(Class<?> beanType, Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof IocException) {
+            return (IocException) cause;
+        }
+        return new IocException("Could not create async bean " + beanType.getName(), cause);
+    }
+}
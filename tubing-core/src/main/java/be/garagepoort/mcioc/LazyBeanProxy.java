@@ -0,0 +1,63 @@
+package be.garagepoort.mcioc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Stands in for a bean which is not created yet.
+ * The bean is retrieved from the supplier the first time a method is called on the proxy, at most once.
+ */
+class LazyBeanProxy implements InvocationHandler {
+
+    private final Supplier<Object> beanSupplier;
+    private volatile Object bean;
+
+    private LazyBeanProxy(Supplier<Object> beanSupplier) {
+        this.beanSupplier = beanSupplier;
+    }
+
+    /**
+     * The proxy implements the required type and every public interface of the bean class, so instanceof checks on the proxy behave like on the bean.
+     */
+    static Object create(Class<?> beanClass, Class<?> requiredType, Supplier<Object> beanSupplier) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        if (requiredType.isInterface()) {
+            interfaces.add(requiredType);
+        }
+        for (Class<?> superType : ReflectionUtils.getSuperTypes(beanClass)) {
+            if (superType.isInterface() && Modifier.isPublic(superType.getModifiers())) {
+                interfaces.add(superType);
+            }
+        }
+        return Proxy.newProxyInstance(beanClass.getClassLoader(), interfaces.toArray(new Class[0]), new LazyBeanProxy(beanSupplier));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(getBean(), args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Object getBean() {
+        Object result = bean;
+        if (result == null) {
+            synchronized (this) {
+                result = bean;
+                if (result == null) {
+                    result = beanSupplier.get();
+                    bean = result;
+                }
+            }
+        }
+        return result;
+    }
+}
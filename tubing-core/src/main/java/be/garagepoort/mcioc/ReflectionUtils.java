@@ -1,16 +1,19 @@
 package be.garagepoort.mcioc;
 
+import be.garagepoort.mcioc.configuration.ConfigPath;
 import be.garagepoort.mcioc.configuration.yaml.configuration.file.FileConfiguration;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 public class ReflectionUtils {
 
@@ -28,46 +31,31 @@ public class ReflectionUtils {
         return methods;
     }
 
-    public static <T> Optional<T> getConfigValue(String identifier, Map<String, FileConfiguration> configs) {
-
-        identifier = replaceNestedValues(identifier, configs);
-
-        String configFileId = "config";
-        String path = identifier;
-
-        String[] fileSelectors = identifier.split(":", 2);
-        if (fileSelectors.length == 2) {
-            configFileId = fileSelectors[0];
-            path = fileSelectors[1];
+    /**
+     * Returns the given type, all its superclasses and all interfaces it implements directly or indirectly.
+     */
+    public static Set<Class<?>> getSuperTypes(Class<?> type) {
+        Set<Class<?>> superTypes = new LinkedHashSet<>();
+        Deque<Class<?>> toVisit = new ArrayDeque<>();
+        toVisit.add(type);
+        while (!toVisit.isEmpty()) {
+            Class<?> current = toVisit.poll();
+            if (superTypes.add(current)) {
+                if (current.getSuperclass() != null) {
+                    toVisit.add(current.getSuperclass());
+                }
+                toVisit.addAll(Arrays.asList(current.getInterfaces()));
+            }
         }
-        return Optional.ofNullable((T) configs.get(configFileId).get(path));
+        return superTypes;
     }
 
-    public static Optional<String> getConfigStringValue(String identifier, Map<String, FileConfiguration> configs) {
-        identifier = replaceNestedValues(identifier, configs);
-        String configFileId = "config";
-        String path = identifier;
-
-        String[] fileSelectors = identifier.split(":", 2);
-        if (fileSelectors.length == 2) {
-            configFileId = fileSelectors[0];
-            path = fileSelectors[1];
-        }
-        return Optional.ofNullable(configs.get(configFileId).getString(path));
+    public static <T> Optional<T> getConfigValue(String identifier, Map<String, FileConfiguration> configs) {
+        return ConfigPath.of(identifier).getValue(configs);
     }
 
-    private static String replaceNestedValues(String identifier, Map<String, FileConfiguration> configs) {
-        String regexString = Pattern.quote("%") + "(.*?)" + Pattern.quote("%");
-        Pattern pattern = Pattern.compile(regexString);
-        Matcher matcher = pattern.matcher(identifier);
-        while (matcher.find()) {
-            String nestedConfig = matcher.group(1);
-            Optional<String> configValue = getConfigValue(nestedConfig, configs);
-            if(configValue.isPresent()) {
-                identifier = identifier.replace("%" + nestedConfig + "%", configValue.get());
-            }
-        }
-        return identifier;
+    public static Optional<String> getConfigStringValue(String identifier, Map<String, FileConfiguration> configs) {
+        return ConfigPath.of(identifier).getStringValue(configs);
     }
 
 }
@@ -1,9 +1,11 @@
 package be.garagepoort.mcioc;
 
 import be.garagepoort.mcioc.load.OnLoad;
+import be.garagepoort.mcioc.profiler.ProfileEntry.Phase;
 
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.logging.Logger;
 
 public interface TubingPlugin {
@@ -18,13 +20,50 @@ public interface TubingPlugin {
 
     IocContainer getIocContainer();
 
+    /**
+     * Runs tasks on the thread owning the plugin state, configuration files changed on disk are applied through it.
+     * <p>
+     * Bukkit runs them on the server thread. Bungee and velocity have no main thread, so by default the task runs directly
+     * on the configuration watcher daemon thread: the new property values and the {@code @OnConfigChange} callbacks can run
+     * concurrently with the proxy's event threads. Override this method to hand the tasks to an executor of the plugin.
+     */
+    default Executor getMainThreadExecutor() {
+        return Runnable::run;
+    }
+
     default IocContainer initIocContainer() {
+        IocContainer previous = getIocContainer();
+        if (previous != null) {
+            previous.shutdown();
+        }
         IocContainer iocContainer = new IocContainer();
         iocContainer.init(this);
         List<OnLoad> onloads = iocContainer.getList(OnLoad.class);
         if (onloads != null) {
-            onloads.forEach(onLoad -> onLoad.load(iocContainer));
+            onloads.forEach(onLoad -> iocContainer.getProfiler().profile(onLoad.getClass().getName(), Phase.ON_LOAD, () -> onLoad.load(iocContainer)));
+        }
+        iocContainer.freeze();
+        iocContainer.releaseScanResult();
+        iocContainer.getProfiler().report(this);
+        return iocContainer;
+    }
+
+    /**
+     * Builds a new container from the previous one, keeping the beans which are not affected by configuration changes.
+     * {@link OnLoad} beans are only executed when they were recreated.
+     */
+    default IocContainer reloadIocContainer(IocContainer previous) {
+        IocContainer iocContainer = new IocContainer();
+        iocContainer.reload(this, previous);
+        List<OnLoad> onloads = iocContainer.getList(OnLoad.class);
+        if (onloads != null) {
+            onloads.stream()
+                .filter(onLoad -> !iocContainer.isReusedBean(onLoad))
+                .forEach(onLoad -> iocContainer.getProfiler().profile(onLoad.getClass().getName(), Phase.ON_LOAD, () -> onLoad.load(iocContainer)));
         }
+        iocContainer.freeze();
+        iocContainer.releaseScanResult();
+        iocContainer.getProfiler().report(this);
         return iocContainer;
     }
 
@@ -0,0 +1,26 @@
+package be.garagepoort.mcioc.configuration;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an interface of which every abstract method without parameters reads a configuration property, like
+ * {@code int maxHomes()}. The property is the value of the {@link ConfigProperty} of the method, or the method name when it
+ * has none, prefixed with the value of this annotation and a ".". A prefix like "messages:chat" reads from another file.
+ * <p>
+ * Interfaces are injected in beans as constructor parameters or retrieved from {@link ConfigurationLoader#getConfigInterface(Class)}.
+ * The values are converted once when the configuration is (re)loaded and replaced all at once, so an instance is never
+ * stale and a getter never converts or looks up a value. The {@link be.garagepoort.mcioc.processor.TubingBeanIndexProcessor}
+ * generates an implementation which keeps the values in fields of their primitive type, interfaces compiled without
+ * it are implemented with a {@link java.lang.reflect.Proxy}.
+ * <p>
+ * Missing properties return 0, false or null unless {@link ConfigProperty#required()} is set.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ConfigInterface {
+
+    String value() default "";
+}
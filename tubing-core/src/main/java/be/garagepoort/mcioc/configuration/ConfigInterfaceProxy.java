@@ -0,0 +1,123 @@
+package be.garagepoort.mcioc.configuration;
+
+import be.garagepoort.mcioc.configuration.files.ConfigurationException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implements a {@link ConfigInterface} which was compiled without the generated implementation.
+ * <p>
+ * The converted values are kept in an array by getter which is replaced on every refresh. Primitive values are boxed once
+ * per refresh, the proxy returns the same boxed value on every call. Default methods of the interface are not supported.
+ */
+final class ConfigInterfaceProxy implements InvocationHandler, GeneratedConfigInterface {
+
+    private final Class<?> type;
+    private final Map<Method, Integer> indexes = new HashMap<>();
+    private final List<Getter> getters = new ArrayList<>();
+    private volatile Object[] values;
+
+    private ConfigInterfaceProxy(Class<?> type) {
+        this.type = type;
+        String prefix = type.getAnnotation(ConfigInterface.class).value();
+        for (Method method : type.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || method.isDefault() || isObjectMethod(method)) {
+                continue;
+            }
+            if (method.getParameterCount() != 0 || method.getReturnType() == void.class) {
+                throw new ConfigurationException("Configuration interface " + type.getName() + " can only have getters without parameters, found " + method.getName());
+            }
+            ConfigProperty configProperty = method.getAnnotation(ConfigProperty.class);
+            String key = configProperty == null ? method.getName() : configProperty.value();
+            indexes.put(method, getters.size());
+            getters.add(new Getter(prefix.isEmpty() ? key : prefix + "." + key, method.getReturnType(), configProperty));
+        }
+    }
+
+    /**
+     * An interface can redeclare the methods of {@link Object}, those are not configuration properties.
+     */
+    private static boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    static Object create(Class<?> type) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, new ConfigInterfaceProxy(type));
+    }
+
+    @Override
+    public void refresh(ConfigValues config) {
+        Object[] refreshedValues = new Object[getters.size()];
+        for (int i = 0; i < refreshedValues.length; i++) {
+            refreshedValues[i] = getters.get(i).read(config);
+        }
+        values = refreshedValues;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        Integer index = indexes.get(method);
+        if (index != null) {
+            return values[index];
+        }
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return type.getName() + Arrays.toString(values);
+            default:
+                throw new ConfigurationException("Default method " + method.getName() + " of configuration interface " + type.getName()
+                    + " requires the implementation generated by the TubingBeanIndexProcessor");
+        }
+    }
+
+    private static final class Getter {
+        private final String identifier;
+        private final Class<?> type;
+        private final boolean required;
+        private final String error;
+
+        private Getter(String identifier, Class<?> type, ConfigProperty configProperty) {
+            this.identifier = identifier;
+            this.type = type;
+            this.required = configProperty != null && configProperty.required();
+            this.error = configProperty == null ? "" : configProperty.error();
+        }
+
+        private Object read(ConfigValues config) {
+            if (type == boolean.class) {
+                return config.getBoolean(identifier, required, error);
+            } else if (type == byte.class) {
+                return config.getByte(identifier, required, error);
+            } else if (type == short.class) {
+                return config.getShort(identifier, required, error);
+            } else if (type == char.class) {
+                return config.getChar(identifier, required, error);
+            } else if (type == int.class) {
+                return config.getInt(identifier, required, error);
+            } else if (type == long.class) {
+                return config.getLong(identifier, required, error);
+            } else if (type == float.class) {
+                return config.getFloat(identifier, required, error);
+            } else if (type == double.class) {
+                return config.getDouble(identifier, required, error);
+            }
+            return config.get(identifier, type, required, error);
+        }
+    }
+}
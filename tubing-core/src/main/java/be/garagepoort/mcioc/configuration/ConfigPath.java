@@ -0,0 +1,135 @@
+package be.garagepoort.mcioc.configuration;
+
+import be.garagepoort.mcioc.configuration.yaml.configuration.file.FileConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A parsed configuration identifier like "messages:prefix" or "commands.%config:alias%.permission".
+ * <p>
+ * The part before the first ":" selects the configuration file, "config" when there is none.
+ * Parts between "%" are nested identifiers which are resolved first and replaced by their value.
+ * Identifiers are parsed once and cached until the configuration is reloaded, so looking up an identifier without
+ * nested identifiers only reads the configuration file.
+ */
+public final class ConfigPath {
+
+    private static final String DEFAULT_CONFIG_FILE_ID = "config";
+    private static final int MAX_CACHED_PATHS = 4096;
+    private static final Map<String, ConfigPath> CACHE = new ConcurrentHashMap<>();
+
+    private final String configFileId;
+    private final String path;
+    /**
+     * The literal parts and {@link NestedPath nested identifiers} of an identifier with nested identifiers, null otherwise.
+     */
+    private final List<Object> parts;
+
+    private ConfigPath(String configFileId, String path, List<Object> parts) {
+        this.configFileId = configFileId;
+        this.path = path;
+        this.parts = parts;
+    }
+
+    /**
+     * Returns the cached path of the identifier, parsing it the first time.
+     */
+    public static ConfigPath of(String identifier) {
+        ConfigPath configPath = CACHE.get(identifier);
+        if (configPath != null) {
+            return configPath;
+        }
+        configPath = parse(identifier);
+        if (CACHE.size() < MAX_CACHED_PATHS) {
+            CACHE.putIfAbsent(identifier, configPath);
+        }
+        return configPath;
+    }
+
+    /**
+     * Called when the configuration files are reloaded.
+     */
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    public <T> Optional<T> getValue(Map<String, FileConfiguration> configs) {
+        if (parts == null) {
+            return getValue(configFileId, path, configs);
+        }
+        String identifier = resolveNestedValues(configs);
+        int separator = identifier.indexOf(':');
+        return separator < 0 ? getValue(DEFAULT_CONFIG_FILE_ID, identifier, configs) : getValue(identifier.substring(0, separator), identifier.substring(separator + 1), configs);
+    }
+
+    public Optional<String> getStringValue(Map<String, FileConfiguration> configs) {
+        if (parts == null) {
+            return getStringValue(configFileId, path, configs);
+        }
+        String identifier = resolveNestedValues(configs);
+        int separator = identifier.indexOf(':');
+        return separator < 0 ? getStringValue(DEFAULT_CONFIG_FILE_ID, identifier, configs) : getStringValue(identifier.substring(0, separator), identifier.substring(separator + 1), configs);
+    }
+
+    private static <T> Optional<T> getValue(String configFileId, String path, Map<String, FileConfiguration> configs) {
+        ConfigurationPropertyTracker.read(configFileId, path);
+        return Optional.ofNullable((T) configs.get(configFileId).get(path));
+    }
+
+    private static Optional<String> getStringValue(String configFileId, String path, Map<String, FileConfiguration> configs) {
+        ConfigurationPropertyTracker.read(configFileId, path);
+        return Optional.ofNullable(configs.get(configFileId).getString(path));
+    }
+
+    /**
+     * Nested identifiers without a value are kept as they are, including the surrounding "%".
+     */
+    private String resolveNestedValues(Map<String, FileConfiguration> configs) {
+        StringBuilder identifier = new StringBuilder();
+        for (Object part : parts) {
+            if (part instanceof NestedPath) {
+                NestedPath nestedPath = (NestedPath) part;
+                Optional<String> nestedValue = nestedPath.configPath.getValue(configs);
+                identifier.append(nestedValue.isPresent() ? nestedValue.get() : "%" + nestedPath.identifier + "%");
+            } else {
+                identifier.append((String) part);
+            }
+        }
+        return identifier.toString();
+    }
+
+    private static ConfigPath parse(String identifier) {
+        if (!ConfigTemplate.NESTED_PROPERTIES.hasReferences(identifier)) {
+            int separator = identifier.indexOf(':');
+            return separator < 0 ? new ConfigPath(DEFAULT_CONFIG_FILE_ID, identifier, null) : new ConfigPath(identifier.substring(0, separator), identifier.substring(separator + 1), null);
+        }
+        List<Object> parts = new ArrayList<>();
+        ConfigTemplate.NESTED_PROPERTIES.tokenize(identifier, new ConfigTemplate.TokenHandler() {
+            @Override
+            public void literal(String source, int start, int end) {
+                parts.add(source.substring(start, end));
+            }
+
+            @Override
+            public void reference(String nestedIdentifier) {
+                parts.add(new NestedPath(nestedIdentifier, of(nestedIdentifier)));
+            }
+        });
+        return new ConfigPath(null, null, Collections.unmodifiableList(parts));
+    }
+
+    private static final class NestedPath {
+        private final String identifier;
+        private final ConfigPath configPath;
+
+        private NestedPath(String identifier, ConfigPath configPath) {
+            this.identifier = identifier;
+            this.configPath = configPath;
+        }
+    }
+}
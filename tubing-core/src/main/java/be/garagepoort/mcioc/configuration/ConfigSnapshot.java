@@ -0,0 +1,44 @@
+package be.garagepoort.mcioc.configuration;
+
+import be.garagepoort.mcioc.configuration.yaml.configuration.file.FileConfiguration;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The configuration files loaded by the {@link ConfigurationLoader}, keyed by their identifier.
+ * <p>
+ * A snapshot never changes: reloading the configuration publishes a new snapshot, so a snapshot can be shared between threads
+ * and compared with the snapshot of a later reload.
+ */
+public final class ConfigSnapshot {
+
+    public static final ConfigSnapshot EMPTY = new ConfigSnapshot(Collections.emptyMap());
+
+    private final Map<String, FileConfiguration> configurationFiles;
+
+    ConfigSnapshot(Map<String, FileConfiguration> configurationFiles) {
+        this.configurationFiles = Collections.unmodifiableMap(new LinkedHashMap<>(configurationFiles));
+    }
+
+    /**
+     * The configuration files as an unmodifiable map, the same instance on every call.
+     */
+    public Map<String, FileConfiguration> getConfigurationFiles() {
+        return configurationFiles;
+    }
+
+    public Optional<FileConfiguration> getConfigurationFile(String identifier) {
+        return Optional.ofNullable(configurationFiles.get(identifier));
+    }
+
+    public <T> Optional<T> getConfigValue(String identifier) {
+        return ConfigPath.of(identifier).getValue(configurationFiles);
+    }
+
+    public Optional<String> getConfigStringValue(String identifier) {
+        return ConfigPath.of(identifier).getStringValue(configurationFiles);
+    }
+}
@@ -0,0 +1,113 @@
+package be.garagepoort.mcioc.configuration;
+
+import be.garagepoort.mcioc.configuration.files.ConfigurationException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * A text with references between an open and a close token, like "hello {{messages:name}}".
+ * <p>
+ * Texts are scanned once from left to right. Text without references is returned as is, otherwise the literal parts and the
+ * resolved references are appended to a single buffer. References without a value are kept as they are.
+ */
+public final class ConfigTemplate {
+
+    /**
+     * The "{{identifier}}" references in configuration files, replaced when the configuration is loaded.
+     */
+    public static final ConfigTemplate CONFIG_PROPERTIES = new ConfigTemplate("{{", "}}");
+    /**
+     * The "%identifier%" references nested in a configuration identifier, see {@link ConfigPath}.
+     */
+    public static final ConfigTemplate NESTED_PROPERTIES = new ConfigTemplate("%", "%");
+
+    private final String open;
+    private final String close;
+
+    public ConfigTemplate(String open, String close) {
+        this.open = open;
+        this.close = close;
+    }
+
+    public boolean hasReferences(String text) {
+        int start = text.indexOf(open);
+        return start >= 0 && text.indexOf(close, start + open.length()) >= 0;
+    }
+
+    /**
+     * Passes the literal parts and references of the text to the handler in order.
+     * An open token without a matching close token is part of the literal text.
+     */
+    public void tokenize(String text, TokenHandler handler) {
+        int start = 0;
+        int openIndex;
+        while ((openIndex = text.indexOf(open, start)) >= 0) {
+            int closeIndex = text.indexOf(close, openIndex + open.length());
+            if (closeIndex < 0) {
+                break;
+            }
+            if (openIndex > start) {
+                handler.literal(text, start, openIndex);
+            }
+            handler.reference(text.substring(openIndex + open.length(), closeIndex));
+            start = closeIndex + close.length();
+        }
+        if (start < text.length()) {
+            handler.literal(text, start, text.length());
+        }
+    }
+
+    /**
+     * Replaces the references with the value returned by the resolver. References in a resolved value are replaced as well.
+     *
+     * @throws ConfigurationException when a value refers back to itself
+     */
+    public String replace(String text, Function<String, Optional<String>> resolver) {
+        if (!hasReferences(text)) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length() + 16);
+        replace(text, resolver, result, new ArrayDeque<>());
+        return result.toString();
+    }
+
+    private void replace(String text, Function<String, Optional<String>> resolver, StringBuilder result, Deque<String> resolving) {
+        tokenize(text, new TokenHandler() {
+            @Override
+            public void literal(String source, int start, int end) {
+                result.append(source, start, end);
+            }
+
+            @Override
+            public void reference(String identifier) {
+                Optional<String> value = resolver.apply(identifier);
+                if (!value.isPresent()) {
+                    result.append(open).append(identifier).append(close);
+                    return;
+                }
+                if (!hasReferences(value.get())) {
+                    result.append(value.get());
+                    return;
+                }
+                if (resolving.contains(identifier)) {
+                    throw new ConfigurationException("Circular configuration reference: " + String.join(" -> ", resolving) + " -> " + identifier);
+                }
+                resolving.addLast(identifier);
+                replace(value.get(), resolver, result, resolving);
+                resolving.removeLast();
+            }
+        });
+    }
+
+    public interface TokenHandler {
+        /**
+         * The literal text between start (inclusive) and end (exclusive) of the source.
+         */
+        void literal(String source, int start, int end);
+
+        void reference(String identifier);
+    }
+}
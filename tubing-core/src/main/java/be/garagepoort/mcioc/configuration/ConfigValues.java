@@ -0,0 +1,143 @@
+package be.garagepoort.mcioc.configuration;
+
+import be.garagepoort.mcioc.configuration.files.ConfigurationException;
+import be.garagepoort.mcioc.configuration.yaml.configuration.NumberConversions;
+import be.garagepoort.mcioc.configuration.yaml.configuration.file.FileConfiguration;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Reads the values of a {@link ConfigInterface} from the configuration files and converts them to the type of the getter.
+ * Numbers are converted to the numeric type of the getter and numeric or boolean strings are parsed.
+ * <p>
+ * A missing property returns the default value of the type, or throws a {@link ConfigurationException} with the error of
+ * the {@link ConfigProperty} when it is required.
+ */
+public final class ConfigValues {
+
+    private final Map<String, FileConfiguration> configs;
+
+    public ConfigValues(Map<String, FileConfiguration> configs) {
+        this.configs = configs;
+    }
+
+    public boolean getBoolean(String identifier, boolean required, String error) {
+        Object value = getValue(identifier, required, error);
+        return value != null && (Boolean) convert(identifier, value, Boolean.class);
+    }
+
+    public byte getByte(String identifier, boolean required, String error) {
+        Object value = getValue(identifier, required, error);
+        return value == null ? 0 : (Byte) convert(identifier, value, Byte.class);
+    }
+
+    public short getShort(String identifier, boolean required, String error) {
+        Object value = getValue(identifier, required, error);
+        return value == null ? 0 : (Short) convert(identifier, value, Short.class);
+    }
+
+    public char getChar(String identifier, boolean required, String error) {
+        Object value = getValue(identifier, required, error);
+        return value == null ? 0 : (Character) convert(identifier, value, Character.class);
+    }
+
+    public int getInt(String identifier, boolean required, String error) {
+        Object value = getValue(identifier, required, error);
+        return value == null ? 0 : (Integer) convert(identifier, value, Integer.class);
+    }
+
+    public long getLong(String identifier, boolean required, String error) {
+        Object value = getValue(identifier, required, error);
+        return value == null ? 0 : (Long) convert(identifier, value, Long.class);
+    }
+
+    public float getFloat(String identifier, boolean required, String error) {
+        Object value = getValue(identifier, required, error);
+        return value == null ? 0 : (Float) convert(identifier, value, Float.class);
+    }
+
+    public double getDouble(String identifier, boolean required, String error) {
+        Object value = getValue(identifier, required, error);
+        return value == null ? 0 : (Double) convert(identifier, value, Double.class);
+    }
+
+    /**
+     * The value converted to the given type, which is the wrapper type for primitive getters.
+     */
+    public <T> T get(String identifier, Class<T> type, boolean required, String error) {
+        Object value = getValue(identifier, required, error);
+        return value == null ? null : type.cast(convert(identifier, value, type));
+    }
+
+    private Object getValue(String identifier, boolean required, String error) {
+        Optional<Object> value = ConfigPath.of(identifier).getValue(configs);
+        if (!value.isPresent() && required) {
+            throw new ConfigurationException(error.isEmpty() ? "Configuration not found for " + identifier : error);
+        }
+        return value.orElse(null);
+    }
+
+    private static Object convert(String identifier, Object value, Class<?> type) {
+        if (type.isInstance(value)) {
+            return value;
+        }
+        if (type == String.class && !(value instanceof Map) && !(value instanceof Iterable)) {
+            return value.toString();
+        }
+        if (value instanceof Number || value instanceof String) {
+            if (type == Boolean.class && value instanceof String && isBoolean((String) value)) {
+                return Boolean.valueOf((String) value);
+            }
+            if (type == Character.class && value instanceof String && ((String) value).length() == 1) {
+                return ((String) value).charAt(0);
+            }
+            Object number = isNumber(value) ? convertNumber(value, type) : null;
+            if (number != null) {
+                return number;
+            }
+        }
+        throw new ConfigurationException("Failed to convert configuration value for '" + identifier + "', is it correct type?");
+    }
+
+    /**
+     * Null when the type is not a primitive number type.
+     */
+    private static Object convertNumber(Object value, Class<?> type) {
+        if (type == Integer.class) {
+            return NumberConversions.toInt(value);
+        }
+        if (type == Long.class) {
+            return NumberConversions.toLong(value);
+        }
+        if (type == Double.class) {
+            return NumberConversions.toDouble(value);
+        }
+        if (type == Float.class) {
+            return NumberConversions.toFloat(value);
+        }
+        if (type == Short.class) {
+            return NumberConversions.toShort(value);
+        }
+        if (type == Byte.class) {
+            return NumberConversions.toByte(value);
+        }
+        return null;
+    }
+
+    private static boolean isBoolean(String value) {
+        return value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false");
+    }
+
+    private static boolean isNumber(Object value) {
+        if (value instanceof Number) {
+            return true;
+        }
+        try {
+            Double.parseDouble((String) value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
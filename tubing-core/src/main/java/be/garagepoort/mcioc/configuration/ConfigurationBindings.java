@@ -0,0 +1,193 @@
+package be.garagepoort.mcioc.configuration;
+
+import be.garagepoort.mcioc.IocException;
+import be.garagepoort.mcioc.ReflectionUtils;
+import be.garagepoort.mcioc.configuration.files.ConfigurationException;
+import be.garagepoort.mcioc.configuration.yaml.configuration.file.FileConfiguration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers which configuration properties every {@link ConfigProperty} field and setter of the beans read when it was injected,
+ * so a change of the configuration files only injects the affected members again instead of recreating the beans.
+ * <p>
+ * Beans with {@link OnConfigChange} methods are notified once their members are injected again.
+ */
+public final class ConfigurationBindings {
+
+    private final Map<String, Set<Binding>> bindingsByProperty = new HashMap<>();
+    private final Map<Object, List<Binding>> bindingsByBean = new IdentityHashMap<>();
+    private final Map<Object, List<Method>> listeners = new IdentityHashMap<>();
+
+    /**
+     * Injects the configuration properties of the bean like {@link PropertyInjector#injectConfigurationProperties(Object, Map)}.
+     */
+    public void inject(Object bean, Map<String, FileConfiguration> configs) {
+        InjectionPlan plan = InjectionPlan.of(bean.getClass());
+        Function<String, Optional> configRetrievalFunction = v -> ReflectionUtils.getConfigValue(v, configs);
+        List<Binding> bindings = new ArrayList<>(plan.getProperties().size());
+        for (InjectionPlan.Property property : plan.getProperties()) {
+            Binding binding = new Binding(bean, property);
+            binding.inject(configRetrievalFunction);
+            bindings.add(binding);
+        }
+        register(bean, bindings, plan.getOnConfigChangeMethods());
+    }
+
+    /**
+     * Takes over the bindings of a bean which is reused from a previous container.
+     */
+    public void inherit(ConfigurationBindings previous, Object bean) {
+        List<Binding> bindings;
+        List<Method> onConfigChangeMethods;
+        synchronized (previous) {
+            bindings = previous.bindingsByBean.getOrDefault(bean, Collections.emptyList());
+            onConfigChangeMethods = previous.listeners.getOrDefault(bean, Collections.emptyList());
+        }
+        register(bean, bindings, onConfigChangeMethods);
+    }
+
+    private synchronized void register(Object bean, List<Binding> bindings, List<Method> onConfigChangeMethods) {
+        if (!bindings.isEmpty()) {
+            bindingsByBean.put(bean, bindings);
+            bindings.forEach(this::index);
+        }
+        if (!onConfigChangeMethods.isEmpty()) {
+            listeners.put(bean, onConfigChangeMethods);
+        }
+    }
+
+    /**
+     * The configuration properties read by the fields and setters of the bean.
+     */
+    public synchronized Set<String> getBoundProperties(Object bean) {
+        Set<String> properties = new HashSet<>();
+        bindingsByBean.getOrDefault(bean, Collections.emptyList()).forEach(b -> properties.addAll(b.readProperties));
+        return properties;
+    }
+
+    /**
+     * Injects the members which read one of the changed properties again and calls the {@link OnConfigChange} methods.
+     * A member which can no longer be injected, e.g. because a required property was removed, keeps its value.
+     */
+    public synchronized void apply(Set<String> changedProperties, Map<String, FileConfiguration> configs, Logger logger) {
+        Set<Binding> affectedBindings = new LinkedHashSet<>();
+        for (String changedProperty : changedProperties) {
+            if (changedProperty.endsWith(":" + ConfigurationPropertyTracker.ALL_PROPERTIES)) {
+                bindingsByBean.values().forEach(bindings -> bindings.stream()
+                    .filter(b -> ConfigurationPropertyTracker.isAffected(b.readProperties, changedProperties))
+                    .forEach(affectedBindings::add));
+            } else {
+                affectedBindings.addAll(bindingsByProperty.getOrDefault(changedProperty, Collections.emptySet()));
+            }
+        }
+
+        Function<String, Optional> configRetrievalFunction = v -> ReflectionUtils.getConfigValue(v, configs);
+        Set<Object> affectedBeans = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Binding binding : affectedBindings) {
+            unindex(binding);
+            try {
+                binding.inject(configRetrievalFunction);
+                affectedBeans.add(binding.bean);
+            } catch (ConfigurationException | IocException e) {
+                logger.severe("Could not apply the configuration change of " + binding.property.getConfigProperty() + " to " + binding.bean.getClass().getName() + ": " + e.getMessage());
+            }
+            index(binding);
+        }
+
+        listeners.forEach((bean, onConfigChangeMethods) -> {
+            for (Method onConfigChangeMethod : onConfigChangeMethods) {
+                if (isListening(onConfigChangeMethod.getAnnotation(OnConfigChange.class), bean, affectedBeans, changedProperties)) {
+                    notify(bean, onConfigChangeMethod, changedProperties, logger);
+                }
+            }
+        });
+    }
+
+    private boolean isListening(OnConfigChange onConfigChange, Object bean, Set<Object> affectedBeans, Set<String> changedProperties) {
+        if (onConfigChange.value().length == 0) {
+            return affectedBeans.contains(bean);
+        }
+        for (String property : onConfigChange.value()) {
+            String configFileId = property.contains(":") ? property.substring(0, property.indexOf(':')) : "config";
+            String path = property.contains(":") ? property.substring(property.indexOf(':') + 1) : property;
+            if (changedProperties.contains(configFileId + ":" + path) || changedProperties.contains(configFileId + ":" + ConfigurationPropertyTracker.ALL_PROPERTIES)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void notify(Object bean, Method onConfigChangeMethod, Set<String> changedProperties, Logger logger) {
+        try {
+            if (onConfigChangeMethod.getParameterCount() == 1) {
+                onConfigChangeMethod.invoke(bean, changedProperties);
+            } else {
+                onConfigChangeMethod.invoke(bean);
+            }
+        } catch (IllegalAccessException e) {
+            logger.severe("Cannot call OnConfigChange method " + onConfigChangeMethod.getName() + " of " + bean.getClass().getName() + ". Make sure the method is public");
+        } catch (InvocationTargetException e) {
+            logger.log(Level.SEVERE, "OnConfigChange method " + onConfigChangeMethod.getName() + " of " + bean.getClass().getName() + " failed", e.getCause());
+        }
+    }
+
+    private void index(Binding binding) {
+        for (String readProperty : binding.readProperties) {
+            bindingsByProperty.computeIfAbsent(readProperty, p -> new LinkedHashSet<>()).add(binding);
+        }
+    }
+
+    private void unindex(Binding binding) {
+        for (String readProperty : binding.readProperties) {
+            Set<Binding> bindings = bindingsByProperty.get(readProperty);
+            if (bindings != null) {
+                bindings.remove(binding);
+                if (bindings.isEmpty()) {
+                    bindingsByProperty.remove(readProperty);
+                }
+            }
+        }
+    }
+
+    /**
+     * A field or setter of a bean with the configuration properties it read when it was last injected.
+     * Nested property references can make it read different properties after a change.
+     */
+    private static final class Binding {
+        private final Object bean;
+        private final InjectionPlan.Property property;
+        private Set<String> readProperties = Collections.emptySet();
+
+        private Binding(Object bean, InjectionPlan.Property property) {
+            this.bean = bean;
+            this.property = property;
+        }
+
+        private void inject(Function<String, Optional> configRetrievalFunction) {
+            Set<String> properties = new HashSet<>();
+            try {
+                ConfigurationPropertyTracker.collect(properties, () -> {
+                    property.inject(bean, configRetrievalFunction);
+                    return null;
+                });
+            } finally {
+                readProperties = properties;
+            }
+        }
+    }
+}
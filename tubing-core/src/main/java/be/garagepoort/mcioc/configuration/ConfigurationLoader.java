@@ -6,115 +6,455 @@ import be.garagepoort.mcioc.TubingPlugin;
 import be.garagepoort.mcioc.common.TubingConfigurationProvider;
 import be.garagepoort.mcioc.configuration.files.AutoUpdater;
 import be.garagepoort.mcioc.configuration.files.ConfigMigrator;
+import be.garagepoort.mcioc.configuration.files.ConfigurationCache;
 import be.garagepoort.mcioc.configuration.files.ConfigurationException;
 import be.garagepoort.mcioc.configuration.files.ConfigurationFile;
 import be.garagepoort.mcioc.configuration.files.ConfigurationUtil;
+import be.garagepoort.mcioc.configuration.yaml.configuration.InvalidConfigurationException;
 import be.garagepoort.mcioc.configuration.yaml.configuration.file.FileConfiguration;
 import be.garagepoort.mcioc.load.InjectTubingPlugin;
+import be.garagepoort.mcioc.profiler.ContainerProfiler;
+import be.garagepoort.mcioc.profiler.ProfileEntry;
+import be.garagepoort.mcioc.profiler.ProfileEntry.Phase;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @IocBean(priority = true)
 public class ConfigurationLoader {
 
+    private static final String MIGRATIONS_PROFILE_ENTRY = "Configuration migrations";
+
     private List<FileConfiguration> configurations = new ArrayList<>();
     private final TubingPlugin tubingPlugin;
     private List<ConfigurationFile> configurationFiles = new ArrayList<>();
+    private final List<ConfigMigrator> configurationMigrators;
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
+    private Map<String, ProfileEntry> profileEntries = new LinkedHashMap<>();
+    private final Map<Class<?>, Object> configInterfaces = new ConcurrentHashMap<>();
+    private final Set<ConfigurationFile> filesWithReferences = new HashSet<>();
 
     public ConfigurationLoader(@InjectTubingPlugin TubingPlugin tubingPlugin, TubingConfigurationProvider tubingConfigurationProvider) {
         this.tubingPlugin = tubingPlugin;
         this.configurationFiles = tubingConfigurationProvider.getConfigurationFiles();
-        boolean success = loadConfig(tubingPlugin, tubingConfigurationProvider.getConfigurationMigrators());
+        this.configurationMigrators = tubingConfigurationProvider.getConfigurationMigrators();
+        reload();
+    }
+
+    /**
+     * Reads all configuration files again, running migrations and updating them where needed.
+     */
+    public synchronized void reload() {
+        boolean success = loadConfig(tubingPlugin, configurationMigrators);
         if (!success) {
             throw new ConfigurationException("Could not load TubingConfigurationProvider");
         }
     }
 
+    /**
+     * Every file is read from disk once. The migrations run once for all files, after which the defaults of the plugin are
+     * merged in and a file is only written back when that changed its content. Written content is validated first, as the
+     * auto updater did, and a file which cannot be written fails the load with a {@link ConfigurationException}.
+     * Property references are resolved on the loaded configuration, see {@link #replaceConfigProperties(FileConfiguration)}.
+     * <p>
+     * Reading and updating the files are done for all files at the same time on {@code tubing.config.threads} threads,
+     * defaulting to the number of processors. The migrations and the property references, which can refer to other files,
+     * run once all files are done.
+     */
     private boolean loadConfig(TubingPlugin tubingPlugin, List<ConfigMigrator> configurationMigrators) {
         this.configurations = new ArrayList<>();
+        this.profileEntries = new LinkedHashMap<>();
+        this.filesWithReferences.clear();
         if (configurationFiles.isEmpty()) {
             return true;
         }
 
+        int threads = Math.min(configurationFiles.size(), Math.max(1, Integer.getInteger("tubing.config.threads", Runtime.getRuntime().availableProcessors())));
+        ExecutorService executorService = threads == 1 ? null : Executors.newFixedThreadPool(threads, runnable -> {
+            Thread worker = new Thread(runnable, "Tubing configuration loader - " + tubingPlugin.getName());
+            worker.setDaemon(true);
+            return worker;
+        });
+        try {
+            Executor executor = executorService == null ? Runnable::run : executorService;
+            Map<ConfigurationFile, String> loadedContents = forEachFile(executor, configurationFile -> {
+                ConfigurationUtil.saveConfigFile(tubingPlugin, configurationFile.getPath());
+                FileConfiguration currentConfig = ConfigurationCache.load(tubingPlugin, configurationFile.getPath());
+                configurationFile.setFileConfiguration(currentConfig);
+                return currentConfig.saveToString();
+            });
+
+            if (!configurationMigrators.isEmpty()) {
+                long start = System.nanoTime();
+                long allocatedBytes = ContainerProfiler.getAllocatedBytes();
+                configurationMigrators.forEach(m -> m.migrate(configurationFiles));
+                addProfileEntry(MIGRATIONS_PROFILE_ENTRY, start, allocatedBytes);
+            }
+            configurationFiles.forEach(configurationFile -> configurationFile.getFileConfiguration().options().copyDefaults(true));
+
+            Map<ConfigurationFile, Boolean> updated = forEachFile(executor, configurationFile -> {
+                FileConfiguration updatedConfig = configurationFile.isIgnoreUpdater() ? configurationFile.getFileConfiguration() : AutoUpdater.mergeDefaults(tubingPlugin, configurationFile);
+                String content = updatedConfig.saveToString();
+                if (!content.equals(loadedContents.get(configurationFile))) {
+                    try {
+                        if (!configurationFile.isIgnoreUpdater()) {
+                            AutoUpdater.validateConfigContent(content);
+                        }
+                        ConfigurationUtil.saveConfiguration(tubingPlugin, configurationFile.getPath(), content);
+                    } catch (InvalidConfigurationException e) {
+                        tubingPlugin.getLogger().severe("Configuration file is INVALID!!! Disabling " + tubingPlugin.getName() + "!");
+                        tubingPlugin.getLogger().severe("Full error [" + e.getMessage() + "]");
+                        return false;
+                    } catch (IOException e) {
+                        throw new ConfigurationException("Unable to migrate configurations", e);
+                    }
+                }
+                configurationFile.setFileConfiguration(updatedConfig);
+                return true;
+            });
+            if (updated.containsValue(false)) {
+                return false;
+            }
+        } finally {
+            if (executorService != null) {
+                executorService.shutdown();
+            }
+        }
+
         for (ConfigurationFile configurationFile : configurationFiles) {
-            ConfigurationUtil.saveConfigFile(tubingPlugin, configurationFile.getPath());
-            FileConfiguration currentConfig = ConfigurationUtil.loadConfiguration(tubingPlugin, configurationFile.getPath());
-            configurationFile.setFileConfiguration(currentConfig);
+            long start = System.nanoTime();
+            long allocatedBytes = ContainerProfiler.getAllocatedBytes();
+            if (replaceConfigProperties(configurationFile.getFileConfiguration())) {
+                filesWithReferences.add(configurationFile);
+            }
+            this.configurations.add(configurationFile.getFileConfiguration());
+            addProfileEntry(configurationFile, start, allocatedBytes);
         }
+        snapshot = new ConfigSnapshot(collectConfigurationFiles());
+        ConfigPath.clearCache();
+        refreshConfigInterfaces();
+        return true;
+    }
 
+    /**
+     * Runs the stage for every configuration file on the executor and waits until all files are done.
+     * The time spent on each file is added to its profile entry in the order of the files.
+     */
+    private <T> Map<ConfigurationFile, T> forEachFile(Executor executor, Function<ConfigurationFile, T> stage) {
+        Map<ConfigurationFile, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        Map<ConfigurationFile, ProfileEntry> fileProfileEntries = new ConcurrentHashMap<>();
         for (ConfigurationFile configurationFile : configurationFiles) {
-            AutoUpdater.runMigrations(tubingPlugin, configurationFiles, configurationMigrators);
-            FileConfiguration updatedConfig = AutoUpdater.updateConfig(tubingPlugin, configurationFile);
-            if (updatedConfig == null) {
-                return false;
+            futures.put(configurationFile, CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                long allocatedBytes = ContainerProfiler.getAllocatedBytes();
+                T result = stage.apply(configurationFile);
+                fileProfileEntries.put(configurationFile, newProfileEntry(configurationFile.getPath(), start, allocatedBytes));
+                return result;
+            }, executor));
+        }
+
+        Map<ConfigurationFile, T> results = new LinkedHashMap<>();
+        RuntimeException failure = null;
+        for (Map.Entry<ConfigurationFile, CompletableFuture<T>> future : futures.entrySet()) {
+            try {
+                results.put(future.getKey(), future.getValue().join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
             }
-            configurationFile.setFileConfiguration(updatedConfig);
         }
+        if (failure != null) {
+            throw failure;
+        }
+        for (ConfigurationFile configurationFile : configurationFiles) {
+            ProfileEntry profileEntry = fileProfileEntries.get(configurationFile);
+            profileEntries.merge(profileEntry.getName(), profileEntry, ProfileEntry::plus);
+        }
+        return results;
+    }
 
+    /**
+     * Reads the given configuration files again, for files changed on disk. Migrations and the auto updater are not run.
+     * Files containing {{identifier}} references are read again as well, so their references are resolved against the new values.
+     * When one of the files is invalid none of them is replaced.
+     *
+     * @return the changed properties of the resolved configurations, see {@link ConfigurationPropertyTracker#getChangedProperties(Map, Map)}
+     */
+    public synchronized Set<String> reloadFiles(Collection<ConfigurationFile> changedFiles) {
+        Map<ConfigurationFile, FileConfiguration> reloadedFiles = new LinkedHashMap<>();
         for (ConfigurationFile configurationFile : configurationFiles) {
-            String newConfigFile = parseConfigurationPropertiesFromFile(configurationFile.getPath());
-            FileConfiguration configuration = ConfigurationUtil.loadConfiguration(newConfigFile);
+            if (changedFiles.contains(configurationFile) || filesWithReferences.contains(configurationFile)) {
+                reloadedFiles.put(configurationFile, ConfigurationCache.load(tubingPlugin, configurationFile.getPath()));
+            }
+        }
+
+        Map<ConfigurationFile, FileConfiguration> previousFiles = new LinkedHashMap<>();
+        reloadedFiles.forEach((configurationFile, configuration) -> {
+            previousFiles.put(configurationFile, configurationFile.getFileConfiguration());
             configurationFile.setFileConfiguration(configuration);
-            this.configurations.add(configuration);
+        });
+        Set<ConfigurationFile> reloadedFilesWithReferences = new HashSet<>();
+        try {
+            for (Map.Entry<ConfigurationFile, FileConfiguration> reloadedFile : reloadedFiles.entrySet()) {
+                if (replaceConfigProperties(reloadedFile.getValue())) {
+                    reloadedFilesWithReferences.add(reloadedFile.getKey());
+                }
+            }
+        } catch (RuntimeException e) {
+            previousFiles.forEach(ConfigurationFile::setFileConfiguration);
+            throw e;
+        }
+
+        Map<String, FileConfiguration> previousConfigs = new HashMap<>();
+        Map<String, FileConfiguration> configs = new HashMap<>();
+        reloadedFiles.forEach((configurationFile, configuration) -> {
+            FileConfiguration previousConfig = previousFiles.get(configurationFile);
+            previousConfigs.put(configurationFile.getIdentifier(), previousConfig);
+            configs.put(configurationFile.getIdentifier(), configuration);
+            int index = configurations.indexOf(previousConfig);
+            if (index >= 0) {
+                configurations.set(index, configuration);
+            }
+            filesWithReferences.remove(configurationFile);
+        });
+        filesWithReferences.addAll(reloadedFilesWithReferences);
+        snapshot = new ConfigSnapshot(collectConfigurationFiles());
+        ConfigPath.clearCache();
+        refreshConfigInterfaces();
+        return ConfigurationPropertyTracker.getChangedProperties(previousConfigs, configs);
+    }
+
+    /**
+     * Watches the configuration files for changes, see {@link ConfigurationWatcher}.
+     * Changed files are read again by {@link #reloadFiles(Collection)} on the given executor, and the changed properties are
+     * passed to the listener unless nothing changed.
+     */
+    public ConfigurationWatcher watch(Executor executor, Consumer<Set<String>> listener) {
+        Map<Path, ConfigurationFile> files = new HashMap<>();
+        for (ConfigurationFile configurationFile : configurationFiles) {
+            files.put(tubingPlugin.getDataFolder().toPath().resolve(configurationFile.getPath()).toAbsolutePath().normalize(), configurationFile);
+        }
+        try {
+            return new ConfigurationWatcher(tubingPlugin.getName(), files, changedFiles -> executor.execute(() -> {
+                try {
+                    Set<String> changedProperties = reloadFiles(changedFiles);
+                    if (!changedProperties.isEmpty()) {
+                        listener.accept(changedProperties);
+                    }
+                } catch (ConfigurationException e) {
+                    tubingPlugin.getLogger().severe("Could not reload the changed configuration files: " + e.getMessage());
+                }
+            }), tubingPlugin.getLogger());
+        } catch (IOException e) {
+            throw new ConfigurationException("Could not watch the configuration files", e);
         }
-        return true;
     }
 
+    /**
+     * The time spent loading, migrating and parsing every configuration file during the last (re)load.
+     */
+    public List<ProfileEntry> getProfileEntries() {
+        return new ArrayList<>(profileEntries.values());
+    }
+
+    private void addProfileEntry(ConfigurationFile configurationFile, long start, long allocatedBytes) {
+        addProfileEntry(configurationFile.getPath(), start, allocatedBytes);
+    }
+
+    private void addProfileEntry(String name, long start, long allocatedBytes) {
+        profileEntries.merge(name, newProfileEntry(name, start, allocatedBytes), ProfileEntry::plus);
+    }
+
+    private static ProfileEntry newProfileEntry(String name, long start, long allocatedBytes) {
+        long allocated = allocatedBytes < 0 ? -1 : ContainerProfiler.getAllocatedBytes() - allocatedBytes;
+        return new ProfileEntry(name, Phase.CONFIGURATION_FILE, System.nanoTime() - start, allocated);
+    }
+
+    /**
+     * The configuration files of the last (re)load. A reload replaces the snapshot, it never changes the returned one.
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * The configuration files of the last (re)load as an unmodifiable map.
+     */
     public Map<String, FileConfiguration> getConfigurationFiles() {
-        return configurationFiles.stream()
-                .collect(Collectors.toMap(ConfigurationFile::getIdentifier, ConfigurationFile::getFileConfiguration, (a, b) -> a));
+        ConfigurationPropertyTracker.readAll();
+        return snapshot.getConfigurationFiles();
     }
 
     public <T> Optional<T> getConfigValue(String identifier) {
-        return ReflectionUtils.getConfigValue(identifier, getConfigurationFiles());
+        return snapshot.getConfigValue(identifier);
     }
 
     public Optional<String> getConfigStringValue(String identifier) {
-        return ReflectionUtils.getConfigStringValue(identifier, getConfigurationFiles());
+        return snapshot.getConfigStringValue(identifier);
     }
 
-    private String parseConfigurationPropertiesFromFile(String configPath) {
-        File dataFolder = tubingPlugin.getDataFolder();
-        String fullConfigResourcePath = (configPath).replace('\\', '/');
-        File configFile = new File(dataFolder, fullConfigResourcePath);
+    /**
+     * The instance of the {@link ConfigInterface}, the same instance on every call. Its values are refreshed on every (re)load.
+     */
+    public <T> T getConfigInterface(Class<T> type) {
+        Object configInterface = configInterfaces.get(type);
+        if (configInterface == null) {
+            synchronized (this) {
+                configInterface = configInterfaces.get(type);
+                if (configInterface == null) {
+                    configInterface = newConfigInterface(type);
+                    refresh(configInterface, new ConfigValues(snapshot.getConfigurationFiles()));
+                    configInterfaces.put(type, configInterface);
+                }
+            }
+        }
+        return type.cast(configInterface);
+    }
 
+    /**
+     * Uses the implementation generated by the annotation processor when the interface was compiled with it.
+     */
+    private static Object newConfigInterface(Class<?> type) {
+        if (!type.isInterface() || !type.isAnnotationPresent(ConfigInterface.class)) {
+            throw new ConfigurationException(type.getName() + " is not an interface annotated with @ConfigInterface");
+        }
+        Class<?> generatedClass;
         try {
-            FileReader fr = new FileReader(configFile);
-            StringBuilder totalStr = new StringBuilder();
-            try (BufferedReader br = new BufferedReader(fr)) {
+            generatedClass = Class.forName(type.getName() + GeneratedConfigInterface.CLASS_SUFFIX, false, type.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return ConfigInterfaceProxy.create(type);
+        }
+        if (!type.isAssignableFrom(generatedClass) || !GeneratedConfigInterface.class.isAssignableFrom(generatedClass)) {
+            return ConfigInterfaceProxy.create(type);
+        }
+        try {
+            return generatedClass.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new ConfigurationException("Cannot create " + generatedClass.getName(), e);
+        }
+    }
 
-                String line;
-                while ((line = br.readLine()) != null) {
-                    totalStr.append(line).append(System.getProperty("line.separator"));
+    /**
+     * Every interface keeps its previous values when one of its values cannot be converted, the first failure is thrown
+     * once all interfaces are refreshed.
+     */
+    private void refreshConfigInterfaces() {
+        if (configInterfaces.isEmpty()) {
+            return;
+        }
+        ConfigValues config = new ConfigValues(snapshot.getConfigurationFiles());
+        ConfigurationException failure = null;
+        for (Object configInterface : configInterfaces.values()) {
+            try {
+                refresh(configInterface, config);
+            } catch (ConfigurationException e) {
+                if (failure == null) {
+                    failure = e;
                 }
-                return replaceConfigProperties(totalStr.toString());
             }
-        } catch (Exception e) {
-            throw new ConfigurationException("Could not replace configuration properties in yaml file");
         }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * The values are not recorded as read by the bean being created, the instance follows the changes itself.
+     */
+    private static void refresh(Object configInterface, ConfigValues config) {
+        GeneratedConfigInterface generated = configInterface instanceof GeneratedConfigInterface
+            ? (GeneratedConfigInterface) configInterface
+            : (GeneratedConfigInterface) Proxy.getInvocationHandler(configInterface);
+        ConfigurationPropertyTracker.untracked(() -> {
+            generated.refresh(config);
+            return null;
+        });
+    }
+
+    private Map<String, FileConfiguration> collectConfigurationFiles() {
+        return configurationFiles.stream()
+                .collect(Collectors.toMap(ConfigurationFile::getIdentifier, ConfigurationFile::getFileConfiguration, (a, b) -> a));
+    }
+
+    /**
+     * Replaces the {{identifier}} references in the values of the configuration, including the values inside lists and maps,
+     * with the values of the configuration files loaded so far. References in those values are replaced as well, see {@link ConfigTemplate}.
+     * <p>
+     * Only string values are resolved, keys are left as they are. A reference has to be quoted when it starts the value
+     * ({@code prefix: '{{messages.prefix}} >'}), unquoted yaml reads it as a flow map.
+     *
+     * @return whether the configuration contains references, resolved or not
+     */
+    private boolean replaceConfigProperties(FileConfiguration configuration) {
+        Map<String, FileConfiguration> configs = collectConfigurationFiles();
+        boolean hasReferences = false;
+        for (String key : configuration.getKeys(true)) {
+            Object value = configuration.get(key);
+            Object replacedValue = replaceConfigProperties(value, configs);
+            if (replacedValue != value) {
+                configuration.set(key, replacedValue);
+                hasReferences = true;
+            }
+        }
+        return hasReferences;
     }
 
-    private String replaceConfigProperties(String message) {
-        String newMessage = message;
-        String regexString = Pattern.quote("{{") + "(.*?)" + Pattern.quote("}}");
-        Pattern pattern = Pattern.compile(regexString);
-        Matcher matcher = pattern.matcher(message);
-        while (matcher.find()) {
-            String matched = matcher.group(1);
-            Optional<String> configValue = getConfigStringValue(matched);
-            if (configValue.isPresent()) {
-                newMessage = newMessage.replace("{{" + matched + "}}", configValue.get());
+    private Object replaceConfigProperties(Object value, Map<String, FileConfiguration> configs) {
+        if (value instanceof String) {
+            return replaceConfigProperties((String) value, configs);
+        }
+        if (value instanceof List) {
+            List<Object> values = (List<Object>) value;
+            List<Object> replacedValues = null;
+            for (int i = 0; i < values.size(); i++) {
+                Object replacedValue = replaceConfigProperties(values.get(i), configs);
+                if (replacedValue != values.get(i)) {
+                    if (replacedValues == null) {
+                        replacedValues = new ArrayList<>(values);
+                    }
+                    replacedValues.set(i, replacedValue);
+                }
             }
+            return replacedValues == null ? value : replacedValues;
         }
-        return newMessage;
+        if (value instanceof Map) {
+            Map<Object, Object> values = (Map<Object, Object>) value;
+            Map<Object, Object> replacedValues = null;
+            for (Map.Entry<Object, Object> entry : values.entrySet()) {
+                Object replacedValue = replaceConfigProperties(entry.getValue(), configs);
+                if (replacedValue != entry.getValue()) {
+                    if (replacedValues == null) {
+                        replacedValues = new LinkedHashMap<>(values);
+                    }
+                    replacedValues.put(entry.getKey(), replacedValue);
+                }
+            }
+            return replacedValues == null ? value : replacedValues;
+        }
+        return value;
+    }
+
+    private String replaceConfigProperties(String message, Map<String, FileConfiguration> configs) {
+        return ConfigTemplate.CONFIG_PROPERTIES.replace(message, identifier -> ReflectionUtils.getConfigStringValue(identifier, configs));
     }
 }
@@ -0,0 +1,153 @@
+package be.garagepoort.mcioc.configuration;
+
+import be.garagepoort.mcioc.configuration.yaml.configuration.ConfigurationSection;
+import be.garagepoort.mcioc.configuration.yaml.configuration.file.FileConfiguration;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Records which configuration properties are read while a bean is created.
+ * <p>
+ * Properties are recorded as "configFileId:path". Reading the raw configuration files records {@link #ALL_PROPERTIES}.
+ * On an incremental reload the recorded properties are compared with the changed properties to find out which beans have to be recreated.
+ */
+public class ConfigurationPropertyTracker {
+
+    public static final String ALL_PROPERTIES = "*";
+
+    private static final ThreadLocal<Set<String>> CURRENT = new ThreadLocal<>();
+
+    private ConfigurationPropertyTracker() {
+    }
+
+    public static <T> T track(Set<String> properties, Callable<T> action) throws Exception {
+        Set<String> previous = CURRENT.get();
+        CURRENT.set(properties);
+        try {
+            return action.call();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Records the properties read by the action in the given set, as well as in the properties tracked by the calling thread.
+     */
+    public static <T> T collect(Set<String> properties, Supplier<T> action) {
+        Set<String> previous = CURRENT.get();
+        CURRENT.set(properties);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+                previous.addAll(properties);
+            }
+        }
+    }
+
+    /**
+     * Runs the action without recording the properties it reads, for values which follow reloads by themselves.
+     */
+    public static <T> T untracked(Supplier<T> action) {
+        Set<String> previous = CURRENT.get();
+        CURRENT.remove();
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public static void read(String configFileId, String path) {
+        Set<String> properties = CURRENT.get();
+        if (properties != null) {
+            properties.add(configFileId + ":" + path);
+        }
+    }
+
+    public static void readAll() {
+        Set<String> properties = CURRENT.get();
+        if (properties != null) {
+            properties.add(ALL_PROPERTIES);
+        }
+    }
+
+    public static boolean isAffected(Set<String> readProperties, Set<String> changedProperties) {
+        if (changedProperties.isEmpty()) {
+            return false;
+        }
+        for (String readProperty : readProperties) {
+            if (readProperty.equals(ALL_PROPERTIES) || changedProperties.contains(readProperty)) {
+                return true;
+            }
+            String configFileId = readProperty.substring(0, readProperty.indexOf(':'));
+            if (changedProperties.contains(configFileId + ":" + ALL_PROPERTIES)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compares two sets of configuration files.
+     * A changed property also marks all its parent sections as changed, so beans reading a whole section are affected as well.
+     * Added or removed configuration files are returned as "configFileId:*".
+     */
+    public static Set<String> getChangedProperties(Map<String, FileConfiguration> previousConfigs, Map<String, FileConfiguration> configs) {
+        Set<String> configFileIds = new HashSet<>(previousConfigs.keySet());
+        configFileIds.addAll(configs.keySet());
+
+        Set<String> changedProperties = new HashSet<>();
+        for (String configFileId : configFileIds) {
+            FileConfiguration previousConfig = previousConfigs.get(configFileId);
+            FileConfiguration config = configs.get(configFileId);
+            if (previousConfig == null || config == null) {
+                changedProperties.add(configFileId + ":" + ALL_PROPERTIES);
+                continue;
+            }
+
+            Map<String, Object> previousValues = previousConfig.getValues(true);
+            Map<String, Object> values = config.getValues(true);
+            Set<String> paths = new HashSet<>(previousValues.keySet());
+            paths.addAll(values.keySet());
+            char separator = config.options().pathSeparator();
+            for (String path : paths) {
+                Object previousValue = previousValues.get(path);
+                Object value = values.get(path);
+                if (previousValue instanceof ConfigurationSection && value instanceof ConfigurationSection) {
+                    continue;
+                }
+                if (!Objects.equals(previousValue, value)) {
+                    addWithParents(changedProperties, configFileId, path, separator);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(changedProperties);
+    }
+
+    private static void addWithParents(Set<String> changedProperties, String configFileId, String path, char separator) {
+        String current = path;
+        while (changedProperties.add(configFileId + ":" + current)) {
+            int index = current.lastIndexOf(separator);
+            if (index < 0) {
+                break;
+            }
+            current = current.substring(0, index);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package be.garagepoort.mcioc.configuration;
+
+import be.garagepoort.mcioc.configuration.files.ConfigurationFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watches the directories of the configuration files on a daemon thread, see {@link ConfigurationLoader#watch}.
+ * <p>
+ * Editors often write a file in several steps, so changes are only reported once no file changed for
+ * {@code -Dtubing.config.watch.debounce} milliseconds, 500 by default.
+ */
+public final class ConfigurationWatcher implements Closeable {
+
+    private static final long DEBOUNCE_MILLIS = Long.getLong("tubing.config.watch.debounce", 500);
+
+    private final WatchService watchService;
+    private final Map<Path, ConfigurationFile> configurationFiles;
+    private final Consumer<Set<ConfigurationFile>> listener;
+    private final Logger logger;
+    private volatile boolean closed;
+
+    ConfigurationWatcher(String name, Map<Path, ConfigurationFile> configurationFiles, Consumer<Set<ConfigurationFile>> listener, Logger logger) throws IOException {
+        this.configurationFiles = configurationFiles;
+        this.listener = listener;
+        this.logger = logger;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        Set<Path> directories = new HashSet<>();
+        for (Path file : configurationFiles.keySet()) {
+            Path directory = file.getParent();
+            if (Files.isDirectory(directory) && directories.add(directory)) {
+                directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+            }
+        }
+        Thread thread = new Thread(this::watch, "Tubing configuration watcher - " + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch() {
+        try {
+            while (!closed) {
+                Set<ConfigurationFile> changedFiles = new LinkedHashSet<>();
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    Path directory = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            changedFiles.addAll(configurationFiles.values());
+                        } else {
+                            ConfigurationFile configurationFile = configurationFiles.get(directory.resolve((Path) event.context()));
+                            if (configurationFile != null) {
+                                changedFiles.add(configurationFile);
+                            }
+                        }
+                    }
+                    key.reset();
+                    key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (!changedFiles.isEmpty() && !closed) {
+                    notifyListener(changedFiles);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // The watcher was closed
+        }
+    }
+
+    private void notifyListener(Set<ConfigurationFile> changedFiles) {
+        try {
+            listener.accept(changedFiles);
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Could not reload the changed configuration files", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not stop watching the configuration files", e);
+        }
+    }
+}
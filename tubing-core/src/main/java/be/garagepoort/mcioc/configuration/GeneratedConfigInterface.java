@@ -0,0 +1,16 @@
+package be.garagepoort.mcioc.configuration;
+
+/**
+ * Implemented by the classes which the {@link be.garagepoort.mcioc.processor.TubingBeanIndexProcessor} writes for every
+ * {@link ConfigInterface}, named after the interface with a {@value #CLASS_SUFFIX} suffix.
+ */
+public interface GeneratedConfigInterface {
+
+    String CLASS_SUFFIX = "_TubingConfig";
+
+    /**
+     * Converts all values of the interface and replaces the current values at once.
+     * The current values are kept when a value cannot be converted.
+     */
+    void refresh(ConfigValues config);
+}
@@ -0,0 +1,355 @@
+package be.garagepoort.mcioc.configuration;
+
+import be.garagepoort.mcioc.IocException;
+import be.garagepoort.mcioc.ReflectionUtils;
+import be.garagepoort.mcioc.configuration.files.ConfigurationException;
+import be.garagepoort.mcioc.configuration.transformers.ConfigEmbeddedObjectTransformer;
+import be.garagepoort.mcioc.configuration.transformers.ConfigObjectListTransformer;
+import be.garagepoort.mcioc.configuration.yaml.configuration.MemorySection;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * The configuration properties of a class, resolved once per class and reused for every injected instance.
+ * <p>
+ * A plan holds the full configuration path of every {@link ConfigProperty} setter and field, a method handle to set it
+ * and the transformers to apply. Transformers without configuration properties of their own are created once and shared.
+ */
+final class InjectionPlan {
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final ClassValue<InjectionPlan> PLANS = new ClassValue<InjectionPlan>() {
+        @Override
+        protected InjectionPlan computeValue(Class<?> type) {
+            return new InjectionPlan(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final List<Property> properties;
+    private final List<Method> onConfigChangeMethods;
+    private volatile Constructor<?> constructor;
+
+    private InjectionPlan(Class<?> type) {
+        this.type = type;
+        ConfigProperties configProperties = type.getAnnotation(ConfigProperties.class);
+        List<Property> properties = new ArrayList<>();
+        for (Method configMethod : ReflectionUtils.getMethodsAnnotatedWith(type, ConfigProperty.class)) {
+            // Setters only support plain values, transformers and embedded objects are applied to fields and constructor parameters
+            properties.add(new Property(configMethod.getParameterTypes()[0], configProperties, new Annotation[]{configMethod.getAnnotation(ConfigProperty.class)}, getSetter(configMethod)));
+        }
+        for (Class<?> klass = type; klass != null; klass = klass.getSuperclass()) {
+            for (Field field : klass.getDeclaredFields()) {
+                if (field.isAnnotationPresent(ConfigProperty.class)) {
+                    properties.add(new Property(field.getType(), configProperties, field.getAnnotations(), getSetter(field)));
+                }
+            }
+        }
+        this.properties = Collections.unmodifiableList(properties);
+        this.onConfigChangeMethods = ReflectionUtils.getMethodsAnnotatedWith(type, OnConfigChange.class);
+    }
+
+    static InjectionPlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    boolean hasProperties() {
+        return !properties.isEmpty();
+    }
+
+    List<Property> getProperties() {
+        return properties;
+    }
+
+    List<Method> getOnConfigChangeMethods() {
+        return onConfigChangeMethods;
+    }
+
+    void inject(Object bean, Function<String, Optional> configRetrievalFunction) {
+        for (Property property : properties) {
+            property.inject(bean, configRetrievalFunction);
+        }
+    }
+
+    /**
+     * Creates an instance through the public no-argument constructor, used for embedded configuration objects.
+     */
+    <T> T newInstance() {
+        try {
+            Constructor<?> noArgsConstructor = constructor;
+            if (noArgsConstructor == null) {
+                noArgsConstructor = type.getConstructor();
+                constructor = noArgsConstructor;
+            }
+            return (T) noArgsConstructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
+            throw new ConfigurationException("Invalid ConfigEmbeddedObject configuration");
+        }
+    }
+
+    /**
+     * A configuration property of a constructor parameter, which is not cached as it is only resolved once per bean.
+     */
+    static Optional<Object> parseParameter(Class<?> aClass, Class<?> parameterType, Annotation[] annotations, Function<String, Optional> configRetrievalFunction) {
+        return new Property(parameterType, aClass.getAnnotation(ConfigProperties.class), annotations, null).parse(configRetrievalFunction);
+    }
+
+    /**
+     * Exceptions thrown by the setter are wrapped like a reflective call would.
+     */
+    private static Setter getSetter(Method method) {
+        try {
+            MethodHandle handle = toSetterType(MethodHandles.lookup().unreflect(method), method.getModifiers());
+            Class<?> parameterType = method.getParameterTypes()[0];
+            return (bean, value) -> {
+                Object parameterValue = toParameterValue(parameterType, value);
+                try {
+                    handle.invokeExact(bean, parameterValue);
+                } catch (Throwable e) {
+                    throw new IocException("Cannot inject property. Make sure the config property setter is public", new InvocationTargetException(e));
+                }
+            };
+        } catch (IllegalAccessException e) {
+            // Reported when the property is injected, as the setter is not called when the property is absent
+            return (bean, value) -> {
+                try {
+                    method.invoke(bean, value);
+                } catch (IllegalAccessException | InvocationTargetException invocationException) {
+                    throw new IocException("Cannot inject property. Make sure the config property setter is public", invocationException);
+                }
+            };
+        }
+    }
+
+    private static Setter getSetter(Field field) {
+        field.setAccessible(true);
+        try {
+            MethodHandle handle = toSetterType(MethodHandles.lookup().unreflectSetter(field), field.getModifiers());
+            return (bean, value) -> {
+                Object fieldValue = toParameterValue(field.getType(), value);
+                try {
+                    handle.invokeExact(bean, fieldValue);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IocException("Cannot inject property. Make sure the field is public", e);
+                }
+            };
+        } catch (IllegalAccessException e) {
+            // Final fields have no setter handle but can still be set reflectively
+            return (bean, value) -> {
+                try {
+                    field.set(bean, value);
+                } catch (IllegalAccessException accessException) {
+                    throw new IocException("Cannot inject property. Make sure the field is public", accessException);
+                }
+            };
+        }
+    }
+
+    /**
+     * Static setters and fields have no receiver, the bean argument is dropped.
+     */
+    private static MethodHandle toSetterType(MethodHandle handle, int modifiers) {
+        MethodHandle setter = Modifier.isStatic(modifiers) ? MethodHandles.dropArguments(handle, 0, Object.class) : handle;
+        return setter.asType(SETTER_TYPE);
+    }
+
+    /**
+     * Converts the value like {@link Field#set} and {@link Method#invoke} do: primitive values are widened, like an Integer
+     * for a long, and a value of the wrong type fails with an IllegalArgumentException.
+     */
+    private static Object toParameterValue(Class<?> type, Object value) {
+        if (!type.isPrimitive()) {
+            if (value != null && !type.isInstance(value)) {
+                throw new IllegalArgumentException("Cannot set " + type.getName() + " to " + value.getClass().getName());
+            }
+            return value;
+        }
+        if (type == boolean.class && value instanceof Boolean) {
+            return value;
+        }
+        Object widened = widen(type, value);
+        if (widened == null) {
+            throw new IllegalArgumentException("Cannot set " + type.getName() + " to " + (value == null ? "null" : value.getClass().getName()));
+        }
+        return widened;
+    }
+
+    private static Object widen(Class<?> type, Object value) {
+        int rank = value instanceof Byte ? 1 : value instanceof Short ? 2 : value instanceof Character ? 2 : value instanceof Integer ? 3
+            : value instanceof Long ? 4 : value instanceof Float ? 5 : value instanceof Double ? 6 : 0;
+        if (rank == 0) {
+            return null;
+        }
+        if (type == char.class) {
+            return value instanceof Character ? value : null;
+        }
+        if (value instanceof Character && type == short.class) {
+            return null;
+        }
+        long integral = value instanceof Character ? (Character) value : value instanceof Number && rank <= 4 ? ((Number) value).longValue() : 0;
+        if (type == byte.class) {
+            return rank == 1 ? value : null;
+        }
+        if (type == short.class) {
+            return rank <= 2 ? (short) integral : null;
+        }
+        if (type == int.class) {
+            return rank <= 3 ? (int) integral : null;
+        }
+        if (type == long.class) {
+            return rank <= 4 ? integral : null;
+        }
+        if (type == float.class) {
+            return rank <= 4 ? (float) integral : rank == 5 ? value : null;
+        }
+        if (type == double.class) {
+            return rank <= 4 ? (double) integral : ((Number) value).doubleValue();
+        }
+        return null;
+    }
+
+    private interface Setter {
+        void set(Object bean, Object value);
+    }
+
+    static final class Property {
+        private final Class<?> type;
+        private final String configProperty;
+        private final ConfigProperty configAnnotation;
+        private final Class<?> embeddedObjectClass;
+        private final Class<?> objectListClass;
+        private final List<Transformer> transformers;
+        private final Setter setter;
+
+        private Property(Class<?> type, ConfigProperties configProperties, Annotation[] annotations, Setter setter) {
+            this.type = type;
+            this.setter = setter;
+            ConfigProperty configAnnotation = null;
+            Class<?> embeddedObjectClass = null;
+            Class<?> objectListClass = null;
+            List<Transformer> transformers = null;
+            for (Annotation annotation : annotations) {
+                if (annotation instanceof ConfigProperty) {
+                    configAnnotation = (ConfigProperty) annotation;
+                } else if (annotation instanceof ConfigEmbeddedObject) {
+                    embeddedObjectClass = ((ConfigEmbeddedObject) annotation).value();
+                } else if (annotation instanceof ConfigObjectList) {
+                    objectListClass = ((ConfigObjectList) annotation).value();
+                } else if (annotation instanceof ConfigTransformer) {
+                    transformers = new ArrayList<>();
+                    for (Class<? extends IConfigTransformer> transformerClass : ((ConfigTransformer) annotation).value()) {
+                        transformers.add(new Transformer(transformerClass));
+                    }
+                }
+            }
+            this.configAnnotation = configAnnotation;
+            this.configProperty = (configProperties == null ? "" : configProperties.value() + ".") + configAnnotation.value();
+            this.embeddedObjectClass = embeddedObjectClass;
+            this.objectListClass = objectListClass;
+            this.transformers = transformers;
+        }
+
+        void inject(Object bean, Function<String, Optional> configRetrievalFunction) {
+            Optional<Object> parsedConfigValue = parse(configRetrievalFunction);
+            if (parsedConfigValue.isPresent()) {
+                setter.set(bean, parsedConfigValue.get());
+            }
+        }
+
+        String getConfigProperty() {
+            return configProperty;
+        }
+
+        private Optional<Object> parse(Function<String, Optional> configRetrievalFunction) {
+            try {
+                Optional configValue = configRetrievalFunction.apply(configProperty);
+                if (!configValue.isPresent()) {
+                    if (configAnnotation.required()) {
+                        throw new ConfigurationException(configAnnotation.error().isEmpty() ? "Configuration not found for " + configProperty : configAnnotation.error());
+                    }
+                    return Optional.empty();
+                }
+
+                if (embeddedObjectClass != null) {
+                    Object configSection = configValue.get();
+                    if (configSection instanceof MemorySection) {
+                        return Optional.ofNullable(ConfigEmbeddedObjectTransformer.transform(embeddedObjectClass, (MemorySection) configSection));
+                    }
+                    if (configSection instanceof LinkedHashMap) {
+                        return Optional.ofNullable(ConfigEmbeddedObjectTransformer.transform(embeddedObjectClass, (LinkedHashMap<String, Object>) configSection));
+                    }
+                }
+                if (objectListClass != null) {
+                    return Optional.ofNullable(ConfigObjectListTransformer.transform(objectListClass, (List<LinkedHashMap<String, Object>>) configValue.get()));
+                }
+                if (transformers != null) {
+                    Object transformedConfig = configValue.get();
+                    for (Transformer transformer : transformers) {
+                        transformedConfig = transformer.get(type, configRetrievalFunction).mapConfig(transformedConfig);
+                    }
+                    return Optional.ofNullable(transformedConfig);
+                }
+                return configValue;
+            } catch (ClassCastException e) {
+                throw new ConfigurationException("Failed to convert configuration value for '" + configProperty + "', is it correct type?", e);
+            }
+        }
+    }
+
+    /**
+     * An {@link IConfigTransformer} of a property, shared between injections unless it has configuration properties itself.
+     */
+    private static final class Transformer {
+        private final Class<? extends IConfigTransformer> transformerClass;
+        private final Constructor<?> constructor;
+        private final int parameterCount;
+        private volatile IConfigTransformer sharedTransformer;
+
+        private Transformer(Class<? extends IConfigTransformer> transformerClass) {
+            this.transformerClass = transformerClass;
+            this.constructor = transformerClass.getDeclaredConstructors()[0];
+            this.parameterCount = constructor.getParameterTypes().length;
+        }
+
+        private IConfigTransformer get(Class<?> type, Function<String, Optional> configRetrievalFunction) {
+            IConfigTransformer transformer = sharedTransformer;
+            if (transformer != null) {
+                return transformer;
+            }
+            try {
+                if (parameterCount == 1) {
+                    transformer = (IConfigTransformer) constructor.newInstance(type);
+                } else if (parameterCount == 0) {
+                    transformer = (IConfigTransformer) constructor.newInstance();
+                } else {
+                    throw new IocException("Invalid IConfigTransformer. Invalid constructor");
+                }
+            } catch (InstantiationException | InvocationTargetException | IllegalAccessException e) {
+                throw new IocException("Cannot create configtransformer", e);
+            }
+            InjectionPlan transformerPlan = of(transformerClass);
+            if (transformerPlan.hasProperties()) {
+                transformerPlan.inject(transformer, configRetrievalFunction);
+            } else {
+                sharedTransformer = transformer;
+            }
+            return transformer;
+        }
+    }
+}
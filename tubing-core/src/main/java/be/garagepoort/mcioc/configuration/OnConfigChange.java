@@ -0,0 +1,22 @@
+package be.garagepoort.mcioc.configuration;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a bean method which is called when the configuration files change on disk, after the changed {@link ConfigProperty}
+ * fields and setters of the bean are injected again. The method takes no parameters or a {@code Set<String>} of the changed
+ * properties, formatted as "configFileId:path".
+ * <p>
+ * Without properties the method is called when a configuration property injected in the bean changed.
+ * Otherwise it is called when one of the given properties or a property below it changed, properties without a configFileId
+ * refer to the "config" file.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface OnConfigChange {
+
+    String[] value() default {};
+}
@@ -17,7 +17,6 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 
 public class AutoUpdater {
 
@@ -29,27 +28,7 @@ public class AutoUpdater {
         try {
             validateConfigFile(tubingPlugin, configurationFile.getPath());
 
-            FileConfiguration config = configurationFile.getFileConfiguration();
-            FileConfiguration newConfig = new YamlConfiguration();
-
-            AtomicInteger counter = new AtomicInteger();
-            Map<String, Object> defaultConfigMap = loadConfig(configurationFile.getPath());
-
-            defaultConfigMap.forEach((k, v) -> {
-                if (!config.contains(k) && !(v instanceof ConfigurationSection)) {
-                    newConfig.set(k, v);
-                    counter.getAndIncrement();
-                } else {
-                    newConfig.set(k, config.get(k));
-                }
-            });
-
-            config.getKeys(true).forEach((k) -> {
-                Object value = config.get(k);
-                if (!newConfig.contains(k) && !(value instanceof ConfigurationSection)) {
-                    config.set(k, value);
-                }
-            });
+            FileConfiguration newConfig = mergeDefaults(tubingPlugin, configurationFile);
 
             File file = new File(tubingPlugin.getDataFolder() + File.separator + configurationFile.getPath());
             newConfig.save(file);
@@ -62,6 +41,55 @@ public class AutoUpdater {
         }
     }
 
+    /**
+     * Adds the properties missing from the configuration file with their value in the default configuration file of the plugin.
+     * Unlike {@link #updateConfig(TubingPlugin, ConfigurationFile)} the result is not validated or saved.
+     */
+    public static FileConfiguration mergeDefaults(TubingPlugin tubingPlugin, ConfigurationFile configurationFile) {
+        FileConfiguration config = configurationFile.getFileConfiguration();
+        FileConfiguration newConfig = new YamlConfiguration();
+
+        Map<String, Object> defaultConfigMap = loadConfig(tubingPlugin, configurationFile.getPath());
+
+        defaultConfigMap.forEach((k, v) -> {
+            if (!config.contains(k) && !(v instanceof ConfigurationSection)) {
+                newConfig.set(k, v);
+            } else {
+                Object value = config.get(k);
+                if (!(value instanceof ConfigurationSection)) {
+                    newConfig.set(k, value);
+                } else if (!newConfig.isConfigurationSection(k)) {
+                    copySection((ConfigurationSection) value, newConfig.createSection(k));
+                }
+            }
+        });
+
+        config.getKeys(true).forEach((k) -> {
+            Object value = config.get(k);
+            if (!newConfig.contains(k) && !(value instanceof ConfigurationSection)) {
+                config.set(k, value);
+            }
+        });
+        return newConfig;
+    }
+
+    /**
+     * Copies the section including the keys which are not in the default configuration, so the merged configuration does not
+     * share sections with the loaded configuration.
+     */
+    private static void copySection(ConfigurationSection source, ConfigurationSection target) {
+        for (String key : source.getKeys(false)) {
+            Object value = source.get(key);
+            if (value instanceof ConfigurationSection) {
+                copySection((ConfigurationSection) value, target.createSection(key));
+            } else {
+                target.set(key, value);
+            }
+            target.setComments(key, source.getComments(key));
+            target.setInlineComments(key, source.getInlineComments(key));
+        }
+    }
+
     public static void runMigrations(TubingPlugin tubingPlugin, List<ConfigurationFile> fileConfigurations, List<ConfigMigrator> configMigrators) {
         try {
             configMigrators.forEach(m -> m.migrate(fileConfigurations));
@@ -75,9 +103,9 @@ public class AutoUpdater {
         }
     }
 
-    private static Map<String, Object> loadConfig(String filename) {
+    private static Map<String, Object> loadConfig(TubingPlugin tubingPlugin, String filename) {
         Map<String, Object> configurations = new LinkedHashMap<>();
-        InputStream defConfigStream = getResource(filename);
+        InputStream defConfigStream = getResource(tubingPlugin, filename);
         if (defConfigStream != null) {
             YamlConfiguration yamlConfiguration = YamlConfiguration.loadConfiguration(new InputStreamReader(defConfigStream, StandardCharsets.UTF_8));
             Set<String> keys = yamlConfiguration.getKeys(true);
@@ -86,6 +114,13 @@ public class AutoUpdater {
         return configurations;
     }
 
+    /**
+     * Checks that the content, as it is about to be written to a configuration file, is valid yaml.
+     */
+    public static void validateConfigContent(String content) throws InvalidConfigurationException {
+        new YamlConfiguration().loadFromString(content);
+    }
+
     private static void validateConfigFile(TubingPlugin tubingPlugin, String filename) throws IOException, InvalidConfigurationException {
         validateConfigFile(tubingPlugin.getDataFolder(), filename);
     }
@@ -99,9 +134,9 @@ public class AutoUpdater {
         yamlConfiguration.load(file);
     }
 
-    private static InputStream getResource(String filename) {
+    private static InputStream getResource(TubingPlugin tubingPlugin, String filename) {
         try {
-            URL url = AutoUpdater.class.getClassLoader().getResource(filename);
+            URL url = tubingPlugin.getPluginClassLoader().getResource(filename);
             if (url == null) {
                 return null;
             } else {
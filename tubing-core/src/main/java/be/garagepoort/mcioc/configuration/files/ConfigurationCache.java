@@ -0,0 +1,344 @@
+package be.garagepoort.mcioc.configuration.files;
+
+import be.garagepoort.mcioc.TubingPlugin;
+import be.garagepoort.mcioc.configuration.yaml.configuration.ConfigurationSection;
+import be.garagepoort.mcioc.configuration.yaml.configuration.file.FileConfiguration;
+import be.garagepoort.mcioc.configuration.yaml.configuration.file.YamlConfiguration;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * Keeps a binary copy of every parsed configuration file in the ".cache" folder of the data folder, so unchanged files are
+ * not parsed again on the next start.
+ * <p>
+ * A copy is only used when the size, the last modified time and the SHA-256 hash of the file still match. It holds every
+ * key of the file in order with its comments and value. Files with values other than strings, numbers, booleans, dates,
+ * lists and maps are not cached. The cache is disabled with {@code -Dtubing.config.cache=false}.
+ */
+public final class ConfigurationCache {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("tubing.config.cache", "true"));
+    private static final String CACHE_FOLDER = ".cache";
+    private static final int MAGIC = 0x54424331;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BOOLEAN = 5;
+    private static final byte BIG_INTEGER = 6;
+    private static final byte DATE = 7;
+    private static final byte LIST = 8;
+    private static final byte MAP = 9;
+    private static final byte SECTION = 10;
+
+    private ConfigurationCache() {
+    }
+
+    /**
+     * Loads the configuration file from the data folder of the plugin, from the cache when the file did not change.
+     */
+    public static FileConfiguration load(TubingPlugin tubingPlugin, String path) {
+        File file = new File(tubingPlugin.getDataFolder(), path);
+        if (!ENABLED) {
+            return ConfigurationUtil.loadConfiguration(tubingPlugin, path);
+        }
+
+        byte[] content;
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            content = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            throw new ConfigurationException("Cannot load " + file, e);
+        }
+        Key key = new Key(attributes.size(), attributes.lastModifiedTime().toMillis(), hash(content));
+        Path cacheFile = tubingPlugin.getDataFolder().toPath().resolve(CACHE_FOLDER).resolve(path + ".bin");
+
+        FileConfiguration cachedConfiguration = read(tubingPlugin, cacheFile, key);
+        if (cachedConfiguration != null) {
+            return cachedConfiguration;
+        }
+
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.load(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new ConfigurationException("Cannot load " + file, e);
+        }
+        write(tubingPlugin, cacheFile, key, config);
+        return config;
+    }
+
+    private static FileConfiguration read(TubingPlugin tubingPlugin, Path cacheFile, Key key) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(cacheFile));
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || !key.matches(buffer)) {
+                return null;
+            }
+            YamlConfiguration config = new YamlConfiguration();
+            config.options().setHeader(readComments(buffer));
+            config.options().setFooter(readComments(buffer));
+            int entries = readSize(buffer, 13);
+            for (int i = 0; i < entries; i++) {
+                String path = readString(buffer);
+                List<String> comments = readComments(buffer);
+                List<String> inlineComments = readComments(buffer);
+                if (buffer.get() == SECTION) {
+                    config.createSection(path);
+                } else {
+                    buffer.position(buffer.position() - 1);
+                    config.set(path, readValue(buffer));
+                }
+                config.setComments(path, comments);
+                config.setInlineComments(path, inlineComments);
+            }
+            return config;
+        } catch (IOException | RuntimeException e) {
+            tubingPlugin.getLogger().log(Level.FINE, "Ignoring unreadable configuration cache " + cacheFile, e);
+            return null;
+        }
+    }
+
+    private static void write(TubingPlugin tubingPlugin, Path cacheFile, Key key, FileConfiguration config) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            key.write(output);
+            writeComments(output, config.options().getHeader());
+            writeComments(output, config.options().getFooter());
+            List<String> paths = new ArrayList<>(config.getKeys(true));
+            output.writeInt(paths.size());
+            for (String path : paths) {
+                writeString(output, path);
+                writeComments(output, config.getComments(path));
+                writeComments(output, config.getInlineComments(path));
+                Object value = config.get(path);
+                if (value instanceof ConfigurationSection) {
+                    output.writeByte(SECTION);
+                } else if (!writeValue(output, value)) {
+                    return;
+                }
+            }
+            output.flush();
+
+            Files.createDirectories(cacheFile.getParent());
+            Path tempFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+            try {
+                Files.write(tempFile, bytes.toByteArray());
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            tubingPlugin.getLogger().log(Level.FINE, "Could not write configuration cache " + cacheFile, e);
+        }
+    }
+
+    /**
+     * @return false when the value cannot be cached
+     */
+    private static boolean writeValue(DataOutputStream output, Object value) throws IOException {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof String) {
+            output.writeByte(STRING);
+            writeString(output, (String) value);
+        } else if (value instanceof Integer) {
+            output.writeByte(INTEGER);
+            output.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            output.writeByte(LONG);
+            output.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            output.writeByte(DOUBLE);
+            output.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            output.writeByte(BOOLEAN);
+            output.writeBoolean((Boolean) value);
+        } else if (value instanceof BigInteger) {
+            output.writeByte(BIG_INTEGER);
+            writeString(output, value.toString());
+        } else if (value.getClass() == Date.class) {
+            output.writeByte(DATE);
+            output.writeLong(((Date) value).getTime());
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            output.writeByte(LIST);
+            output.writeInt(list.size());
+            for (Object element : list) {
+                if (!writeValue(output, element)) {
+                    return false;
+                }
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            output.writeByte(MAP);
+            output.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!writeValue(output, entry.getKey()) || !writeValue(output, entry.getValue())) {
+                    return false;
+                }
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static Object readValue(ByteBuffer buffer) {
+        byte type = buffer.get();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(buffer);
+            case INTEGER:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case DOUBLE:
+                return buffer.getDouble();
+            case BOOLEAN:
+                return buffer.get() != 0;
+            case BIG_INTEGER:
+                return new BigInteger(readString(buffer));
+            case DATE:
+                return new Date(buffer.getLong());
+            case LIST:
+                int size = readSize(buffer, 1);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(buffer));
+                }
+                return list;
+            case MAP:
+                int entries = readSize(buffer, 2);
+                Map<Object, Object> map = new LinkedHashMap<>();
+                for (int i = 0; i < entries; i++) {
+                    map.put(readValue(buffer), readValue(buffer));
+                }
+                return map;
+            default:
+                throw new ConfigurationException("Unknown value type " + type + " in configuration cache");
+        }
+    }
+
+    /**
+     * A null comment line is an empty line.
+     */
+    private static void writeComments(DataOutputStream output, List<String> comments) throws IOException {
+        output.writeInt(comments.size());
+        for (String comment : comments) {
+            writeString(output, comment);
+        }
+    }
+
+    private static List<String> readComments(ByteBuffer buffer) {
+        int size = readSize(buffer, 4);
+        List<String> comments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            comments.add(readString(buffer));
+        }
+        return comments;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        if (buffer.getInt(buffer.position()) == -1) {
+            buffer.getInt();
+            return null;
+        }
+        byte[] bytes = new byte[readSize(buffer, 1)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the number of elements which follow, each taking at least the given number of bytes. A corrupt cache file could
+     * otherwise make us allocate an array of any size, it is rejected as unreadable instead.
+     */
+    private static int readSize(ByteBuffer buffer, int minElementBytes) {
+        int size = buffer.getInt();
+        if (size < 0 || (long) size * minElementBytes > buffer.remaining()) {
+            throw new ConfigurationException("Invalid size " + size + " in configuration cache");
+        }
+        return size;
+    }
+
+    private static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new ConfigurationException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Identifies the content of the configuration file a cache file was written for.
+     */
+    private static final class Key {
+        private final long size;
+        private final long lastModified;
+        private final byte[] hash;
+
+        private Key(long size, long lastModified, byte[] hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        private void write(DataOutputStream output) throws IOException {
+            output.writeLong(size);
+            output.writeLong(lastModified);
+            output.writeInt(hash.length);
+            output.write(hash);
+        }
+
+        private boolean matches(ByteBuffer buffer) {
+            if (buffer.getLong() != size || buffer.getLong() != lastModified) {
+                return false;
+            }
+            byte[] cachedHash = new byte[readSize(buffer, 1)];
+            buffer.get(cachedHash);
+            return Arrays.equals(cachedHash, hash);
+        }
+    }
+}
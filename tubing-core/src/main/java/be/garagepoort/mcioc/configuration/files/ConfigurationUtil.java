@@ -12,6 +12,9 @@ import java.io.OutputStream;
 import java.io.StringReader;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
@@ -26,7 +29,7 @@ public class ConfigurationUtil {
         File dataFolder = tubingPlugin.getDataFolder();
         String fullConfigResourcePath = (configurationFile).replace('\\', '/');
 
-        InputStream in = getResource(fullConfigResourcePath);
+        InputStream in = getResource(tubingPlugin, fullConfigResourcePath);
         if (in == null) {
             tubingPlugin.getLogger().log(Level.SEVERE, "Could not find configuration file " + fullConfigResourcePath);
             return;
@@ -56,9 +59,9 @@ public class ConfigurationUtil {
         }
     }
 
-    private static InputStream getResource(String filename) {
+    private static InputStream getResource(TubingPlugin tubingPlugin, String filename) {
         try {
-            URL url = ConfigurationUtil.class.getClassLoader().getResource(filename);
+            URL url = tubingPlugin.getPluginClassLoader().getResource(filename);
             if (url == null) {
                 return null;
             } else {
@@ -84,6 +87,17 @@ public class ConfigurationUtil {
         return config;
     }
 
+    /**
+     * Writes the content to the configuration file in the data folder of the plugin.
+     */
+    public static void saveConfiguration(TubingPlugin plugin, String path, String fileContent) throws IOException {
+        Path file = Paths.get(plugin.getDataFolder() + File.separator + path);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.write(file, fileContent.getBytes(StandardCharsets.UTF_8));
+    }
+
     public static FileConfiguration loadConfiguration(String fileContent) {
         YamlConfiguration config = new YamlConfiguration();
         try {
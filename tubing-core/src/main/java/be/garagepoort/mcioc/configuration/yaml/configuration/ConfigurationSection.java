@@ -19,6 +19,8 @@ public interface ConfigurationSection {
      * <p>
      * If deep is set to false, then this will contain only the keys of any
      * direct children, and not their own children.
+     * <p>
+     * A deep set may be unmodifiable and shared between calls.
      *
      * @param deep Whether or not to get a deep list, as opposed to a shallow
      *             list.
@@ -36,6 +38,8 @@ public interface ConfigurationSection {
      * <p>
      * If deep is set to false, then this will contain only the keys and
      * values of any direct children, and not their own children.
+     * <p>
+     * A deep map may be unmodifiable and shared between calls.
      *
      * @param deep Whether or not to get a deep list, as opposed to a shallow
      *             list.
@@ -20,11 +20,26 @@ import static be.garagepoort.mcioc.configuration.yaml.configuration.NumberConver
  * A type of {@link ConfigurationSection} that is stored in memory.
  */
 public class MemorySection implements ConfigurationSection {
+    private static final boolean PATH_INDEX = Boolean.parseBoolean(System.getProperty("tubing.config.pathIndex", "true"));
+    private static final int MIN_LOOKUPS_BEFORE_INDEX = 4;
+
     protected final Map<String, SectionPathData> map = new LinkedHashMap<String, SectionPathData>();
     private final Configuration root;
     private final ConfigurationSection parent;
     private final String path;
     private final String fullPath;
+    /**
+     * Incremented on the root section by every change of the configuration, see {@link #markModified()}.
+     */
+    private volatile long modifications;
+    /**
+     * The {@link PathIndex} of the root section.
+     */
+    private volatile PathIndex pathIndex;
+    private int pathIndexSize;
+    private int lookupsWithoutIndex;
+    private volatile CachedView<Set<String>> deepKeys;
+    private volatile CachedView<Map<String, Object>> deepValues;
 
     /**
      * Creates an empty MemorySection for use as a root {@link Configuration}
@@ -90,6 +105,8 @@ public class MemorySection implements ConfigurationSection {
             if (defaults != null) {
                 result.addAll(defaults.getKeys(deep));
             }
+        } else if (deep && root instanceof MemorySection) {
+            return getDeepKeys((MemorySection) root);
         }
 
         mapChildrenKeys(result, this, deep);
@@ -97,6 +114,25 @@ public class MemorySection implements ConfigurationSection {
         return result;
     }
 
+    /**
+     * The deep keys are kept until the configuration changes, unless the section contains sections of another configuration
+     * whose changes cannot be detected.
+     */
+    private Set<String> getDeepKeys(MemorySection root) {
+        long currentModifications = root.modifications;
+        CachedView<Set<String>> cachedKeys = deepKeys;
+        if (cachedKeys != null && cachedKeys.modifications == currentModifications) {
+            return cachedKeys.value;
+        }
+        Set<String> result = new LinkedHashSet<String>();
+        mapChildrenKeys(result, this, true);
+        Set<String> keys = Collections.unmodifiableSet(result);
+        if (isOwnedBy(root)) {
+            deepKeys = new CachedView<>(currentModifications, keys);
+        }
+        return keys;
+    }
+
     @Override
 
     public Map<String, Object> getValues(boolean deep) {
@@ -109,6 +145,8 @@ public class MemorySection implements ConfigurationSection {
             if (defaults != null) {
                 result.putAll(defaults.getValues(deep));
             }
+        } else if (deep && root instanceof MemorySection) {
+            return getDeepValues((MemorySection) root);
         }
 
         mapChildrenValues(result, this, deep);
@@ -116,6 +154,36 @@ public class MemorySection implements ConfigurationSection {
         return result;
     }
 
+    private Map<String, Object> getDeepValues(MemorySection root) {
+        long currentModifications = root.modifications;
+        CachedView<Map<String, Object>> cachedValues = deepValues;
+        if (cachedValues != null && cachedValues.modifications == currentModifications) {
+            return cachedValues.value;
+        }
+        Map<String, Object> result = new LinkedHashMap<String, Object>();
+        mapChildrenValues(result, this, true);
+        Map<String, Object> values = Collections.unmodifiableMap(result);
+        if (isOwnedBy(root)) {
+            deepValues = new CachedView<>(currentModifications, values);
+        }
+        return values;
+    }
+
+    /**
+     * Whether all sections below this section belong to the configuration, so all their changes are counted by its root.
+     */
+    private boolean isOwnedBy(MemorySection root) {
+        for (SectionPathData entry : map.values()) {
+            Object data = entry.getData();
+            if (data instanceof ConfigurationSection) {
+                if (!(data instanceof MemorySection) || ((MemorySection) data).getRoot() != root || !((MemorySection) data).isOwnedBy(root)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     @Override
     public boolean contains(String path) {
         return contains(path, false);
@@ -212,7 +280,7 @@ public class MemorySection implements ConfigurationSection {
         ConfigurationSection section = this;
         while ((i1 = path.indexOf(separator, i2 = i1 + 1)) != -1) {
             String node = path.substring(i2, i1);
-            ConfigurationSection subSection = section.getConfigurationSection(node);
+            ConfigurationSection subSection = getChildSection(section, node);
             if (subSection == null) {
                 if (value == null) {
                     // no need to create missing sub-sections if we want to remove the value:
@@ -236,6 +304,7 @@ public class MemorySection implements ConfigurationSection {
                     entry.setData(value);
                 }
             }
+            markModified();
         } else {
             section.set(key, value);
         }
@@ -265,6 +334,20 @@ public class MemorySection implements ConfigurationSection {
         }
 
         final char separator = root.options().pathSeparator();
+        if (root instanceof MemorySection) {
+            PathIndex index = ((MemorySection) root).getPathIndex(separator);
+            if (index != null && PathIndex.isIndexedPath(path, separator)) {
+                if (this == root) {
+                    Object value = index.get(path);
+                    return value == null ? def : value;
+                }
+                if (index.contains(this)) {
+                    Object value = index.get(fullPath + separator + path);
+                    return value == null ? def : value;
+                }
+            }
+        }
+
         // i1 is the leading (higher) index
         // i2 is the trailing (lower) index
         int i1 = -1, i2;
@@ -307,7 +390,7 @@ public class MemorySection implements ConfigurationSection {
         ConfigurationSection section = this;
         while ((i1 = path.indexOf(separator, i2 = i1 + 1)) != -1) {
             String node = path.substring(i2, i1);
-            ConfigurationSection subSection = section.getConfigurationSection(node);
+            ConfigurationSection subSection = getChildSection(section, node);
             if (subSection == null) {
                 section = section.createSection(node);
             } else {
@@ -319,6 +402,7 @@ public class MemorySection implements ConfigurationSection {
         if (section == this) {
             ConfigurationSection result = new MemorySection(this, key);
             map.put(key, new SectionPathData(result));
+            markModified();
             return result;
         }
         return section.createSection(key);
@@ -903,6 +987,53 @@ public class MemorySection implements ConfigurationSection {
         return builder.toString();
     }
 
+    /**
+     * Looks up a direct child section while walking a path to change it, without using or counting towards the {@link PathIndex}.
+     */
+    private static ConfigurationSection getChildSection(ConfigurationSection section, String key) {
+        if (!(section instanceof MemorySection) || key.isEmpty() || section.getRoot().getDefaults() != null) {
+            return section.getConfigurationSection(key);
+        }
+        SectionPathData entry = ((MemorySection) section).map.get(key);
+        Object data = entry == null ? null : entry.getData();
+        return data instanceof ConfigurationSection ? (ConfigurationSection) data : null;
+    }
+
+    /**
+     * Invalidates the path index and the cached deep keys and values of the configuration.
+     * Subclasses changing {@link #map} directly must call this afterwards.
+     */
+    protected void markModified() {
+        Configuration root = getRoot();
+        if (root instanceof MemorySection) {
+            ((MemorySection) root).modifications++;
+        }
+    }
+
+    /**
+     * Returns the path index of this root section, or null when the configuration should be looked up by walking the sections.
+     * <p>
+     * After a change the index is only built again once the number of lookups reached an eighth of its previous size, so
+     * configurations which are changed and read in turn, like while loading them, do not rebuild it on every lookup.
+     */
+    private PathIndex getPathIndex(char separator) {
+        if (!PATH_INDEX) {
+            return null;
+        }
+        long currentModifications = modifications;
+        PathIndex index = pathIndex;
+        if (index == null || !index.isValid(currentModifications, separator)) {
+            if (++lookupsWithoutIndex < Math.max(MIN_LOOKUPS_BEFORE_INDEX, pathIndexSize / 8)) {
+                return null;
+            }
+            lookupsWithoutIndex = 0;
+            index = PathIndex.build(this, separator, currentModifications);
+            pathIndexSize = index.size();
+            pathIndex = index;
+        }
+        return index.isComplete() ? index : null;
+    }
+
     @Override
 
     public List<String> getComments(final String path) {
@@ -968,6 +1099,16 @@ public class MemorySection implements ConfigurationSection {
         return null;
     }
 
+    private static final class CachedView<T> {
+        private final long modifications;
+        private final T value;
+
+        private CachedView(long modifications, T value) {
+            this.modifications = modifications;
+            this.value = value;
+        }
+    }
+
     @Override
     public String toString() {
         Configuration root = getRoot();
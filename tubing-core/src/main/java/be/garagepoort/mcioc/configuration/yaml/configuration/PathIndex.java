@@ -0,0 +1,94 @@
+package be.garagepoort.mcioc.configuration.yaml.configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The values of all entries of a configuration by their full path, so a dotted path is found with a single lookup instead
+ * of walking the sections. An index belongs to the root {@link MemorySection} and is only valid until the configuration
+ * changes.
+ * <p>
+ * An index is incomplete when the configuration contains sections it cannot track, like sections of another configuration
+ * or keys containing the path separator. Those configurations are looked up by walking the sections.
+ */
+final class PathIndex {
+
+    private final long modifications;
+    private final char separator;
+    private final Map<String, Object> values = new HashMap<>();
+    private final boolean complete;
+
+    private PathIndex(MemorySection root, char separator, long modifications) {
+        this.modifications = modifications;
+        this.separator = separator;
+        this.complete = index(root, root, "");
+    }
+
+    static PathIndex build(MemorySection root, char separator, long modifications) {
+        return new PathIndex(root, separator, modifications);
+    }
+
+    /**
+     * Paths with empty parts, like "a..b", are resolved differently when walking the sections and are not looked up in the index.
+     */
+    static boolean isIndexedPath(String path, char separator) {
+        int length = path.length();
+        if (path.charAt(0) == separator || path.charAt(length - 1) == separator) {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            if (path.charAt(i) == separator && path.charAt(i - 1) == separator) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isValid(long modifications, char separator) {
+        return this.modifications == modifications && this.separator == separator;
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    /**
+     * Whether the entries of the section are in the index, which is not the case when the section was removed from the
+     * configuration or is part of another configuration.
+     */
+    boolean contains(MemorySection section) {
+        return values.get(section.getCurrentPath()) == section;
+    }
+
+    /**
+     * The value at the full path, null when there is none.
+     */
+    Object get(String fullPath) {
+        return values.get(fullPath);
+    }
+
+    private boolean index(MemorySection root, MemorySection section, String prefix) {
+        for (Map.Entry<String, SectionPathData> entry : section.map.entrySet()) {
+            String key = entry.getKey();
+            if (key.isEmpty() || key.indexOf(separator) >= 0) {
+                return false;
+            }
+            String path = prefix + key;
+            Object value = entry.getValue().getData();
+            values.put(path, value);
+            if (value instanceof ConfigurationSection) {
+                if (!(value instanceof MemorySection) || ((MemorySection) value).getRoot() != root) {
+                    return false;
+                }
+                if (!index(root, (MemorySection) value, path + separator)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
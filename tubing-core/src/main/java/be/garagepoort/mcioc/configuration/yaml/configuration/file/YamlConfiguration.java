@@ -97,6 +97,7 @@ public class YamlConfiguration extends FileConfiguration {
         }
 
         this.map.clear();
+        markModified();
 
         if (node != null) {
             adjustNodeComments(node);
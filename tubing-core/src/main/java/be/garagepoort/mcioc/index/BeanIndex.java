@@ -0,0 +1,158 @@
+package be.garagepoort.mcioc.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Compile time index of the classes Tubing needs to know about when building the IOC container.
+ * <p>
+ * The index is written by the {@link be.garagepoort.mcioc.processor.TubingBeanIndexProcessor} to {@link #LOCATION}.
+ * Every line holds one tab separated record:
+ * <pre>
+ * annotation &lt;annotation class&gt; &lt;annotated class&gt;
+ * implements &lt;interface&gt; &lt;implementing class&gt;
+ * condition &lt;annotation class&gt; &lt;annotated class&gt; &lt;conditionalOnProperty&gt;
+ * </pre>
+ * All class names are binary names as returned by {@link Class#getName()}.
+ * Condition records are only written for annotations with a non empty {@code conditionalOnProperty}, so the container
+ * can decide whether a bean is enabled without loading its class.
+ */
+public class BeanIndex {
+
+    public static final String LOCATION = "META-INF/tubing/beans.idx";
+
+    private static final String HEADER = "# Tubing bean index";
+    private static final String ANNOTATION = "annotation";
+    private static final String IMPLEMENTS = "implements";
+    private static final String CONDITION = "condition";
+
+    private final Map<String, Set<String>> annotatedClasses = new TreeMap<>();
+    private final Map<String, Set<String>> implementingClasses = new TreeMap<>();
+    private final Map<String, Map<String, String>> conditions = new TreeMap<>();
+
+    public void addAnnotatedClass(String annotation, String className) {
+        annotatedClasses.computeIfAbsent(annotation, k -> new TreeSet<>()).add(className);
+    }
+
+    public void addImplementingClass(String anInterface, String className) {
+        implementingClasses.computeIfAbsent(anInterface, k -> new TreeSet<>()).add(className);
+    }
+
+    public void addCondition(String annotation, String className, String conditionalOnProperty) {
+        conditions.computeIfAbsent(annotation, k -> new TreeMap<>()).put(className, conditionalOnProperty);
+    }
+
+    /**
+     * The conditionalOnProperty of the annotation on the class, empty when the annotation has no condition.
+     */
+    public String getCondition(String annotation, String className) {
+        return conditions.getOrDefault(annotation, Collections.emptyMap()).getOrDefault(className, "");
+    }
+
+    public Set<String> getAnnotatedClasses(String annotation) {
+        return annotatedClasses.getOrDefault(annotation, Collections.emptySet());
+    }
+
+    public Set<String> getImplementingClasses(String anInterface) {
+        return implementingClasses.getOrDefault(anInterface, Collections.emptySet());
+    }
+
+    public boolean isEmpty() {
+        return annotatedClasses.isEmpty() && implementingClasses.isEmpty();
+    }
+
+    public boolean containsClass(String className) {
+        return annotatedClasses.values().stream().anyMatch(c -> c.contains(className))
+            || implementingClasses.values().stream().anyMatch(c -> c.contains(className));
+    }
+
+    public void removeClasses(Predicate<String> classFilter) {
+        annotatedClasses.values().forEach(c -> c.removeIf(classFilter));
+        implementingClasses.values().forEach(c -> c.removeIf(classFilter));
+        conditions.values().forEach(c -> c.keySet().removeIf(classFilter));
+        annotatedClasses.values().removeIf(Set::isEmpty);
+        implementingClasses.values().removeIf(Set::isEmpty);
+        conditions.values().removeIf(Map::isEmpty);
+    }
+
+    public BeanIndex mapClassNames(UnaryOperator<String> mapper) {
+        BeanIndex mapped = new BeanIndex();
+        annotatedClasses.forEach((k, v) -> v.forEach(c -> mapped.addAnnotatedClass(mapper.apply(k), mapper.apply(c))));
+        implementingClasses.forEach((k, v) -> v.forEach(c -> mapped.addImplementingClass(mapper.apply(k), mapper.apply(c))));
+        conditions.forEach((k, v) -> v.forEach((c, condition) -> mapped.addCondition(mapper.apply(k), mapper.apply(c), condition)));
+        return mapped;
+    }
+
+    public void merge(BeanIndex other) {
+        other.annotatedClasses.forEach((k, v) -> v.forEach(c -> addAnnotatedClass(k, c)));
+        other.implementingClasses.forEach((k, v) -> v.forEach(c -> addImplementingClass(k, c)));
+        other.conditions.forEach((k, v) -> v.forEach((c, condition) -> addCondition(k, c, condition)));
+    }
+
+    public void read(Reader reader) throws IOException {
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] record = line.split("\t", 4);
+            if (record.length < 3) {
+                throw new IOException("Invalid bean index record [" + line + "]");
+            }
+            if (ANNOTATION.equals(record[0])) {
+                addAnnotatedClass(record[1], record[2]);
+            } else if (IMPLEMENTS.equals(record[0])) {
+                addImplementingClass(record[1], record[2]);
+            } else if (CONDITION.equals(record[0]) && record.length == 4) {
+                addCondition(record[1], record[2], unescape(record[3]));
+            }
+        }
+    }
+
+    public void write(Writer writer) throws IOException {
+        writer.write(HEADER + "\n");
+        for (Map.Entry<String, Set<String>> entry : annotatedClasses.entrySet()) {
+            for (String className : entry.getValue()) {
+                writer.write(ANNOTATION + "\t" + entry.getKey() + "\t" + className + "\n");
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : implementingClasses.entrySet()) {
+            for (String className : entry.getValue()) {
+                writer.write(IMPLEMENTS + "\t" + entry.getKey() + "\t" + className + "\n");
+            }
+        }
+        for (Map.Entry<String, Map<String, String>> entry : conditions.entrySet()) {
+            for (Map.Entry<String, String> condition : entry.getValue().entrySet()) {
+                writer.write(CONDITION + "\t" + entry.getKey() + "\t" + condition.getKey() + "\t" + escape(condition.getValue()) + "\n");
+            }
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        StringBuilder unescaped = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                unescaped.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+}
@@ -0,0 +1,128 @@
+package be.garagepoort.mcioc.index;
+
+import be.garagepoort.mcioc.IocContainer;
+import be.garagepoort.mcioc.IocException;
+import io.github.classgraph.AnnotationInfo;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * {@link ClassIndex} backed by a {@link BeanIndex}, either read from the files generated at compile time or extracted from a classpath scan.
+ * <p>
+ * Tubing is usually relocated inside the plugin jar, while the index files of the tubing modules still reference the
+ * original package. Those class names are mapped onto the relocated package while loading the index.
+ * <p>
+ * The index only holds class names, so it stays small compared to a {@link ScanResult} which can be closed once the index is extracted.
+ */
+public class BeanIndexClassIndex implements ClassIndex {
+
+    private static final String TUBING_PACKAGE = String.join(".", "be", "garagepoort", "mcioc") + ".";
+
+    private final BeanIndex beanIndex;
+    private final ClassLoader classLoader;
+
+    private BeanIndexClassIndex(BeanIndex beanIndex, ClassLoader classLoader) {
+        this.beanIndex = beanIndex;
+        this.classLoader = classLoader;
+    }
+
+    public static Optional<BeanIndexClassIndex> load(ClassLoader classLoader, String pkg) {
+        try {
+            BeanIndex beanIndex = new BeanIndex();
+            Enumeration<URL> resources = classLoader.getResources(BeanIndex.LOCATION);
+            while (resources.hasMoreElements()) {
+                URLConnection connection = resources.nextElement().openConnection();
+                connection.setUseCaches(false);
+                try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+                    beanIndex.read(reader);
+                }
+            }
+
+            BeanIndex pluginIndex = beanIndex.mapClassNames(BeanIndexClassIndex::relocate);
+            pluginIndex.removeClasses(c -> !c.startsWith(pkg + "."));
+            if (pluginIndex.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(new BeanIndexClassIndex(pluginIndex, classLoader));
+        } catch (IOException e) {
+            throw new IocException("Could not read tubing bean index", e);
+        }
+    }
+
+    public static BeanIndexClassIndex of(BeanIndex beanIndex, ClassLoader classLoader) {
+        return new BeanIndexClassIndex(beanIndex, classLoader);
+    }
+
+    /**
+     * Extracts the annotations, their conditions and the implemented interfaces of every scanned class. The scan result is no longer needed afterwards.
+     */
+    public static BeanIndexClassIndex fromScan(ScanResult scanResult, ClassLoader classLoader) {
+        BeanIndex beanIndex = new BeanIndex();
+        for (ClassInfo classInfo : scanResult.getAllClasses()) {
+            for (AnnotationInfo annotation : classInfo.getAnnotationInfo()) {
+                beanIndex.addAnnotatedClass(annotation.getName(), classInfo.getName());
+                Object conditionalOnProperty = annotation.getParameterValues().getValue("conditionalOnProperty");
+                if (conditionalOnProperty instanceof String && !((String) conditionalOnProperty).isEmpty()) {
+                    beanIndex.addCondition(annotation.getName(), classInfo.getName(), (String) conditionalOnProperty);
+                }
+            }
+            if (!classInfo.isInterface()) {
+                for (ClassInfo anInterface : classInfo.getInterfaces()) {
+                    beanIndex.addImplementingClass(anInterface.getName(), classInfo.getName());
+                }
+            }
+        }
+        return new BeanIndexClassIndex(beanIndex, classLoader);
+    }
+
+    public BeanIndex getBeanIndex() {
+        return beanIndex;
+    }
+
+    public boolean containsClass(Class<?> aClass) {
+        return beanIndex.containsClass(aClass.getName());
+    }
+
+    @Override
+    public Set<String> getClassNamesWithAnnotation(Class<? extends Annotation> annotation) {
+        return beanIndex.getAnnotatedClasses(annotation.getName());
+    }
+
+    @Override
+    public Set<String> getClassNamesImplementing(Class<?> anInterface) {
+        return beanIndex.getImplementingClasses(anInterface.getName());
+    }
+
+    @Override
+    public String getConditionalOnProperty(Class<? extends Annotation> annotation, String className) {
+        return beanIndex.getCondition(annotation.getName(), className);
+    }
+
+    @Override
+    public Class<?> loadClass(String className) {
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new IocException("Tubing bean index references a class that cannot be loaded [" + className + "]", e);
+        }
+    }
+
+    private static String relocate(String className) {
+        String tubingPackage = IocContainer.class.getName().substring(0, IocContainer.class.getName().length() - IocContainer.class.getSimpleName().length());
+        if (className.startsWith(TUBING_PACKAGE)) {
+            return tubingPackage + className.substring(TUBING_PACKAGE.length());
+        }
+        return className;
+    }
+}
@@ -0,0 +1,38 @@
+package be.garagepoort.mcioc.index;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Gives access to the classes of a tubing plugin without the caller having to know how they were discovered.
+ */
+public interface ClassIndex {
+
+    Set<String> getClassNamesWithAnnotation(Class<? extends Annotation> annotation);
+
+    Set<String> getClassNamesImplementing(Class<?> anInterface);
+
+    /**
+     * The conditionalOnProperty of the annotation on the class, read without loading the class. Empty when the annotation has no condition.
+     */
+    String getConditionalOnProperty(Class<? extends Annotation> annotation, String className);
+
+    Class<?> loadClass(String className);
+
+    default List<Class<?>> getClassesWithAnnotation(Class<? extends Annotation> annotation) {
+        return getClassNamesWithAnnotation(annotation).stream().map(this::loadClass).collect(Collectors.toList());
+    }
+
+    default List<Class<?>> getClassesImplementing(Class<?> anInterface) {
+        return getClassNamesImplementing(anInterface).stream().map(this::loadClass).collect(Collectors.toList());
+    }
+
+    /**
+     * A view of this index without the given classes.
+     */
+    default ClassIndex excluding(Set<String> classNames) {
+        return classNames.isEmpty() ? this : new ExcludingClassIndex(this, classNames);
+    }
+}
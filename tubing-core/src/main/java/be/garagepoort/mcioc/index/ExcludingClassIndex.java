@@ -0,0 +1,44 @@
+package be.garagepoort.mcioc.index;
+
+import java.lang.annotation.Annotation;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Hides the beans which are disabled by their conditionalOnProperty, so their classes are never loaded.
+ */
+class ExcludingClassIndex implements ClassIndex {
+
+    private final ClassIndex classIndex;
+    private final Set<String> excludedClasses;
+
+    ExcludingClassIndex(ClassIndex classIndex, Set<String> excludedClasses) {
+        this.classIndex = classIndex;
+        this.excludedClasses = excludedClasses;
+    }
+
+    @Override
+    public Set<String> getClassNamesWithAnnotation(Class<? extends Annotation> annotation) {
+        return exclude(classIndex.getClassNamesWithAnnotation(annotation));
+    }
+
+    @Override
+    public Set<String> getClassNamesImplementing(Class<?> anInterface) {
+        return exclude(classIndex.getClassNamesImplementing(anInterface));
+    }
+
+    @Override
+    public String getConditionalOnProperty(Class<? extends Annotation> annotation, String className) {
+        return classIndex.getConditionalOnProperty(annotation, className);
+    }
+
+    @Override
+    public Class<?> loadClass(String className) {
+        return classIndex.loadClass(className);
+    }
+
+    private Set<String> exclude(Set<String> classNames) {
+        return classNames.stream().filter(c -> !excludedClasses.contains(c)).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
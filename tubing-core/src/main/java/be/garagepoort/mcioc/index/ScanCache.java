@@ -0,0 +1,107 @@
+package be.garagepoort.mcioc.index;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.CodeSource;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Caches the {@link BeanIndex} extracted from a classpath scan in the plugin data folder, so restarting with an unchanged
+ * plugin jar does not have to scan again.
+ * <p>
+ * The cache is keyed by the checksum of the plugin jar. Plugins which are not loaded from a jar file are never cached.
+ */
+public class ScanCache {
+
+    public static final String CACHE_FILE = "tubing-scan.idx";
+
+    private static final String CHECKSUM_HEADER = "# checksum ";
+
+    private final File cacheFile;
+    private final String checksum;
+
+    private ScanCache(File cacheFile, String checksum) {
+        this.cacheFile = cacheFile;
+        this.checksum = checksum;
+    }
+
+    public static ScanCache forPlugin(File dataFolder, Class<?> pluginClass) {
+        File pluginJar = getPluginJar(pluginClass);
+        if (pluginJar == null) {
+            return new ScanCache(new File(dataFolder, CACHE_FILE), null);
+        }
+        try {
+            return new ScanCache(new File(dataFolder, CACHE_FILE), getChecksum(pluginJar));
+        } catch (IOException e) {
+            return new ScanCache(new File(dataFolder, CACHE_FILE), null);
+        }
+    }
+
+    public boolean isEnabled() {
+        return checksum != null;
+    }
+
+    /**
+     * The cached index, empty when there is no cache for the current plugin jar.
+     */
+    public Optional<BeanIndex> read() {
+        if (!isEnabled() || !cacheFile.isFile()) {
+            return Optional.empty();
+        }
+        try (BufferedReader reader = Files.newBufferedReader(cacheFile.toPath(), StandardCharsets.UTF_8)) {
+            if (!(CHECKSUM_HEADER + checksum).equals(reader.readLine())) {
+                return Optional.empty();
+            }
+            BeanIndex beanIndex = new BeanIndex();
+            beanIndex.read(reader);
+            return Optional.of(beanIndex);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    public void write(BeanIndex beanIndex) throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        Files.createDirectories(cacheFile.getParentFile().toPath());
+        try (Writer writer = Files.newBufferedWriter(cacheFile.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(CHECKSUM_HEADER + checksum + "\n");
+            beanIndex.write(writer);
+        }
+    }
+
+    private static File getPluginJar(Class<?> pluginClass) {
+        CodeSource codeSource = pluginClass.getProtectionDomain().getCodeSource();
+        URL location = codeSource == null ? null : codeSource.getLocation();
+        if (location == null || !"file".equals(location.getProtocol())) {
+            return null;
+        }
+        try {
+            File file = new File(location.toURI());
+            return file.isFile() ? file : null;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String getChecksum(File pluginJar) throws IOException {
+        CRC32 crc32 = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream inputStream = Files.newInputStream(pluginJar.toPath())) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                crc32.update(buffer, 0, read);
+            }
+        }
+        return pluginJar.length() + "-" + Long.toHexString(crc32.getValue());
+    }
+}
@@ -0,0 +1,240 @@
+package be.garagepoort.mcioc.processor;
+
+import be.garagepoort.mcioc.configuration.ConfigInterface;
+import be.garagepoort.mcioc.configuration.ConfigProperty;
+import be.garagepoort.mcioc.configuration.ConfigValues;
+import be.garagepoort.mcioc.configuration.GeneratedConfigInterface;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes the implementation of a {@link ConfigInterface}, see {@link GeneratedConfigInterface}.
+ * <p>
+ * The converted values are final fields of their declared type in a holder object, a refresh replaces the holder so
+ * a getter is a field read. Interfaces which cannot be implemented from generated code are left out and implemented with
+ * a proxy at runtime: private interfaces, generic interfaces or getters and getters returning inaccessible types.
+ */
+class ConfigInterfaceGenerator {
+
+    private static final String CONFIG_VALUES = ConfigValues.class.getName();
+
+    private final ProcessingEnvironment processingEnv;
+    private final Elements elements;
+    private final Types types;
+
+    ConfigInterfaceGenerator(ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+    }
+
+    static boolean isConfigInterface(TypeElement typeElement) {
+        return typeElement.getKind().isInterface() && typeElement.getAnnotation(ConfigInterface.class) != null;
+    }
+
+    void generate(TypeElement typeElement) {
+        String packageName = elements.getPackageOf(typeElement).getQualifiedName().toString();
+        if (!typeElement.getTypeParameters().isEmpty() || !isAccessible(typeElement, packageName)) {
+            return;
+        }
+        String prefix = typeElement.getAnnotation(ConfigInterface.class).value();
+        Map<String, Getter> getters = new LinkedHashMap<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(typeElement))) {
+            if (!method.getModifiers().contains(Modifier.ABSTRACT) || isObjectMethod(method) || getters.containsKey(method.getSimpleName().toString())) {
+                continue;
+            }
+            if (!method.getParameters().isEmpty() || method.getReturnType().getKind() == TypeKind.VOID) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Configuration interfaces can only have getters without parameters", method);
+                return;
+            }
+            TypeMirror returnType = ((ExecutableType) types.asMemberOf((DeclaredType) typeElement.asType(), method)).getReturnType();
+            if (!method.getTypeParameters().isEmpty() || !isAccessible(returnType, packageName)) {
+                return;
+            }
+            getters.put(method.getSimpleName().toString(), new Getter(method.getSimpleName().toString(), returnType.toString(), generateRead(prefix, method, returnType)));
+        }
+
+        String simpleName = elements.getBinaryName(typeElement).toString().substring(packageName.isEmpty() ? 0 : packageName.length() + 1) + GeneratedConfigInterface.CLASS_SUFFIX;
+        String className = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(className, typeElement);
+            try (Writer writer = sourceFile.openWriter()) {
+                writer.write(generateSource(packageName, simpleName, typeElement, getters.values()));
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write " + className + ": " + e.getMessage());
+        }
+    }
+
+    private String generateSource(String packageName, String simpleName, TypeElement typeElement, Collection<Getter> getters) {
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("public final class ").append(simpleName).append(" implements ").append(typeElement.getQualifiedName())
+            .append(", ").append(GeneratedConfigInterface.class.getName()).append(" {\n\n")
+            .append("    private volatile Values values;\n\n");
+        for (Getter getter : getters) {
+            source.append("    @Override\n")
+                .append("    public ").append(getter.type).append(' ').append(getter.name).append("() {\n")
+                .append("        return values.").append(getter.name).append(";\n")
+                .append("    }\n\n");
+        }
+        source.append("    @Override\n")
+            .append("    public void refresh(").append(CONFIG_VALUES).append(" config) {\n")
+            .append("        values = new Values(config);\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public String toString() {\n")
+            .append("        return ").append(TubingContextGenerator.toStringLiteral(typeElement.getQualifiedName().toString())).append(" + values;\n")
+            .append("    }\n\n")
+            .append("    @SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+            .append("    private static final class Values {\n");
+        for (Getter getter : getters) {
+            source.append("        private final ").append(getter.type).append(' ').append(getter.name).append(";\n");
+        }
+        source.append("\n        private Values(").append(CONFIG_VALUES).append(" config) {\n");
+        for (Getter getter : getters) {
+            source.append("            this.").append(getter.name).append(" = ").append(getter.read).append(";\n");
+        }
+        source.append("        }\n\n")
+            .append("        @Override\n")
+            .append("        public String toString() {\n")
+            .append("            return \"[\"");
+        String separator = "";
+        for (Getter getter : getters) {
+            source.append(separator).append(" + ").append(getter.name);
+            separator = " + \", \"";
+        }
+        return source.append(" + \"]\";\n")
+            .append("        }\n")
+            .append("    }\n")
+            .append("}\n").toString();
+    }
+
+    /**
+     * The call converting the configuration value to the return type of the getter.
+     */
+    private String generateRead(String prefix, ExecutableElement method, TypeMirror returnType) {
+        String key = method.getSimpleName().toString();
+        boolean required = false;
+        String error = "";
+        for (AnnotationMirror annotationMirror : method.getAnnotationMirrors()) {
+            if (!((TypeElement) annotationMirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(ConfigProperty.class.getCanonicalName())) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elements.getElementValuesWithDefaults(annotationMirror).entrySet()) {
+                String name = entry.getKey().getSimpleName().toString();
+                if (name.equals("value")) {
+                    key = (String) entry.getValue().getValue();
+                } else if (name.equals("required")) {
+                    required = (Boolean) entry.getValue().getValue();
+                } else if (name.equals("error")) {
+                    error = (String) entry.getValue().getValue();
+                }
+            }
+        }
+        String identifier = TubingContextGenerator.toStringLiteral(prefix.isEmpty() ? key : prefix + "." + key);
+        String arguments = identifier + ", " + required + ", " + TubingContextGenerator.toStringLiteral(error);
+        switch (returnType.getKind()) {
+            case BOOLEAN:
+                return "config.getBoolean(" + arguments + ")";
+            case BYTE:
+                return "config.getByte(" + arguments + ")";
+            case SHORT:
+                return "config.getShort(" + arguments + ")";
+            case CHAR:
+                return "config.getChar(" + arguments + ")";
+            case INT:
+                return "config.getInt(" + arguments + ")";
+            case LONG:
+                return "config.getLong(" + arguments + ")";
+            case FLOAT:
+                return "config.getFloat(" + arguments + ")";
+            case DOUBLE:
+                return "config.getDouble(" + arguments + ")";
+            default:
+                return "(" + returnType + ") config.get(" + identifier + ", " + types.erasure(returnType) + ".class, " + required + ", " + TubingContextGenerator.toStringLiteral(error) + ")";
+        }
+    }
+
+    /**
+     * Interfaces can redeclare the methods of {@link Object}, those are implemented by the generated class itself.
+     */
+    private boolean isObjectMethod(ExecutableElement method) {
+        if (((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals(Object.class.getName())) {
+            return true;
+        }
+        String name = method.getSimpleName().toString();
+        return method.getParameters().isEmpty() ? name.equals("toString") || name.equals("hashCode") : name.equals("equals") && method.getParameters().size() == 1;
+    }
+
+    private boolean isAccessible(TypeMirror typeMirror, String packageName) {
+        if (typeMirror.getKind().isPrimitive()) {
+            return true;
+        }
+        if (typeMirror.getKind() == TypeKind.ARRAY) {
+            return isAccessible(((ArrayType) typeMirror).getComponentType(), packageName);
+        }
+        if (typeMirror.getKind() == TypeKind.WILDCARD) {
+            WildcardType wildcardType = (WildcardType) typeMirror;
+            TypeMirror bound = wildcardType.getExtendsBound() != null ? wildcardType.getExtendsBound() : wildcardType.getSuperBound();
+            return bound == null || isAccessible(bound, packageName);
+        }
+        if (typeMirror.getKind() != TypeKind.DECLARED || !isAccessible(((DeclaredType) typeMirror).asElement(), packageName)) {
+            return false;
+        }
+        for (TypeMirror typeArgument : ((DeclaredType) typeMirror).getTypeArguments()) {
+            if (!isAccessible(typeArgument, packageName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isAccessible(Element element, String packageName) {
+        for (Element current = element; current instanceof TypeElement; current = current.getEnclosingElement()) {
+            if (current.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!current.getModifiers().contains(Modifier.PUBLIC) && !elements.getPackageOf(current).getQualifiedName().contentEquals(packageName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Getter {
+        private final String name;
+        private final String type;
+        private final String read;
+
+        private Getter(String name, String type, String read) {
+            this.name = name;
+            this.type = type;
+            this.read = read;
+        }
+    }
+}
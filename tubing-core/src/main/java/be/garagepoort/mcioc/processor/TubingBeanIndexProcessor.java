@@ -0,0 +1,192 @@
+package be.garagepoort.mcioc.processor;
+
+import be.garagepoort.mcioc.index.BeanIndex;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the {@link BeanIndex} of the classes being compiled, so the IOC container does not have to scan the plugin
+ * jar on startup.
+ * <p>
+ * Every runtime retained type annotation is indexed, which covers the {@link be.garagepoort.mcioc.IocBean} annotation as
+ * well as the bean annotations added by {@link be.garagepoort.mcioc.load.TubingBeanAnnotationRegistrator}s.
+ * The conditionalOnProperty of every annotation is indexed as well, so beans disabled by the configuration are never loaded.
+ * Provider methods are still looked up on the indexed {@link be.garagepoort.mcioc.TubingConfiguration} classes.
+ * <p>
+ * With {@code -Atubing.generateContext=true} the processor also writes a {@code TubingGeneratedContext} which creates the
+ * beans without reflection, see {@link be.garagepoort.mcioc.GeneratedContext}. It is written to the common package of
+ * the compiled classes unless {@code -Atubing.generateContext.package} is given.
+ * <p>
+ * The implementations of {@link be.garagepoort.mcioc.configuration.ConfigInterface}s are always generated, see {@link ConfigInterfaceGenerator}.
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions({TubingBeanIndexProcessor.GENERATE_CONTEXT_OPTION, TubingBeanIndexProcessor.CONTEXT_PACKAGE_OPTION})
+public class TubingBeanIndexProcessor extends AbstractProcessor {
+
+    static final String GENERATE_CONTEXT_OPTION = "tubing.generateContext";
+    static final String CONTEXT_PACKAGE_OPTION = "tubing.generateContext.package";
+
+    private final BeanIndex beanIndex = new BeanIndex();
+    private final Set<String> processedClasses = new HashSet<>();
+    private final List<TypeElement> roundClasses = new ArrayList<>();
+    private boolean contextGenerated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        roundClasses.clear();
+        for (Element rootElement : roundEnv.getRootElements()) {
+            indexElement(rootElement);
+        }
+        if (!contextGenerated && !roundClasses.isEmpty() && Boolean.parseBoolean(processingEnv.getOptions().get(GENERATE_CONTEXT_OPTION))) {
+            generateContext();
+        }
+        if (roundEnv.processingOver() && !processedClasses.isEmpty()) {
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void indexElement(Element element) {
+        if (!(element instanceof TypeElement) || element.getKind() == ElementKind.ANNOTATION_TYPE) {
+            return;
+        }
+        TypeElement typeElement = (TypeElement) element;
+        String className = getBinaryName(typeElement);
+        processedClasses.add(className);
+        roundClasses.add(typeElement);
+
+        for (AnnotationMirror annotationMirror : typeElement.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            Retention retention = annotationType.getAnnotation(Retention.class);
+            if (retention != null && retention.value() == RetentionPolicy.RUNTIME) {
+                beanIndex.addAnnotatedClass(getBinaryName(annotationType), className);
+                String conditionalOnProperty = getConditionalOnProperty(annotationMirror);
+                if (!conditionalOnProperty.isEmpty()) {
+                    beanIndex.addCondition(getBinaryName(annotationType), className, conditionalOnProperty);
+                }
+            }
+        }
+
+        if (typeElement.getKind() == ElementKind.CLASS || typeElement.getKind() == ElementKind.ENUM) {
+            indexInterfaces(className, typeElement);
+        }
+        if (ConfigInterfaceGenerator.isConfigInterface(typeElement)) {
+            new ConfigInterfaceGenerator(processingEnv).generate(typeElement);
+        }
+
+        for (Element enclosedElement : typeElement.getEnclosedElements()) {
+            indexElement(enclosedElement);
+        }
+    }
+
+    private void indexInterfaces(String className, TypeElement typeElement) {
+        for (TypeMirror anInterface : typeElement.getInterfaces()) {
+            TypeElement interfaceElement = asTypeElement(anInterface);
+            if (interfaceElement != null) {
+                beanIndex.addImplementingClass(getBinaryName(interfaceElement), className);
+                indexInterfaces(className, interfaceElement);
+            }
+        }
+        TypeElement superclass = asTypeElement(typeElement.getSuperclass());
+        if (superclass != null) {
+            indexInterfaces(className, superclass);
+        }
+    }
+
+    /**
+     * The context is generated for the classes of the first round, which are the sources being compiled.
+     * Classes generated by other annotation processors in later rounds are created reflectively.
+     */
+    private void generateContext() {
+        contextGenerated = true;
+        String contextPackage = processingEnv.getOptions().get(CONTEXT_PACKAGE_OPTION);
+        if (contextPackage == null) {
+            contextPackage = TubingContextGenerator.getCommonPackage(processingEnv.getElementUtils(), roundClasses);
+        }
+        new TubingContextGenerator(processingEnv, contextPackage).generate(roundClasses);
+    }
+
+    private void writeIndex() {
+        BeanIndex index = new BeanIndex();
+        index.merge(readPreviousIndex());
+        index.removeClasses(c -> processedClasses.contains(c) || processingEnv.getElementUtils().getTypeElement(c.replace('$', '.')) == null);
+        index.merge(beanIndex);
+
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", BeanIndex.LOCATION);
+            try (Writer writer = resource.openWriter()) {
+                index.write(writer);
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write tubing bean index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Incremental compilation only hands the changed sources to the processor.
+     * Entries of the classes that were not recompiled are kept from the previous index.
+     */
+    private BeanIndex readPreviousIndex() {
+        BeanIndex previousIndex = new BeanIndex();
+        try {
+            FileObject resource = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", BeanIndex.LOCATION);
+            try (Reader reader = resource.openReader(true)) {
+                previousIndex.read(reader);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            return new BeanIndex();
+        }
+        return previousIndex;
+    }
+
+    private String getConditionalOnProperty(AnnotationMirror annotationMirror) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : processingEnv.getElementUtils().getElementValuesWithDefaults(annotationMirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("conditionalOnProperty") && entry.getValue().getValue() instanceof String) {
+                return (String) entry.getValue().getValue();
+            }
+        }
+        return "";
+    }
+
+    private TypeElement asTypeElement(TypeMirror typeMirror) {
+        if (typeMirror.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return (TypeElement) ((DeclaredType) typeMirror).asElement();
+    }
+
+    private String getBinaryName(TypeElement typeElement) {
+        return processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+    }
+}
@@ -0,0 +1,380 @@
+package be.garagepoort.mcioc.processor;
+
+import be.garagepoort.mcioc.AfterIocLoad;
+import be.garagepoort.mcioc.ConditionalOnMissingBean;
+import be.garagepoort.mcioc.GeneratedBeans;
+import be.garagepoort.mcioc.GeneratedContext;
+import be.garagepoort.mcioc.IocBeanProvider;
+import be.garagepoort.mcioc.IocFuture;
+import be.garagepoort.mcioc.IocMulti;
+import be.garagepoort.mcioc.IocMultiProvider;
+import be.garagepoort.mcioc.TubingConfiguration;
+import be.garagepoort.mcioc.configuration.ConfigProperty;
+import be.garagepoort.mcioc.load.InjectTubingPlugin;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the {@value #CONTEXT_CLASS} of the compiled beans, see {@link GeneratedContext}.
+ * <p>
+ * Beans and providers which cannot be called from the generated code are left out and created reflectively:
+ * private classes or constructors, beans with more than one constructor and constructors or providers with
+ * {@link ConfigProperty} parameters.
+ */
+class TubingContextGenerator {
+
+    static final String CONTEXT_CLASS = "TubingGeneratedContext";
+
+    private static final int STATEMENTS_PER_PART = 200;
+    private static final String BEANS = GeneratedBeans.class.getName();
+
+    private final ProcessingEnvironment processingEnv;
+    private final Elements elements;
+    private final String contextPackage;
+
+    TubingContextGenerator(ProcessingEnvironment processingEnv, String contextPackage) {
+        this.processingEnv = processingEnv;
+        this.elements = processingEnv.getElementUtils();
+        this.contextPackage = contextPackage;
+    }
+
+    /**
+     * The deepest package containing all given classes, which is the package of the plugin for a regular plugin project.
+     */
+    static String getCommonPackage(Elements elements, List<TypeElement> classes) {
+        String commonPackage = null;
+        for (TypeElement typeElement : classes) {
+            String pkg = elements.getPackageOf(typeElement).getQualifiedName().toString();
+            if (commonPackage == null) {
+                commonPackage = pkg;
+            }
+            while (!pkg.equals(commonPackage) && !pkg.startsWith(commonPackage + ".")) {
+                int index = commonPackage.lastIndexOf('.');
+                commonPackage = index < 0 ? "" : commonPackage.substring(0, index);
+                if (commonPackage.isEmpty()) {
+                    return commonPackage;
+                }
+            }
+        }
+        return commonPackage == null ? "" : commonPackage;
+    }
+
+    void generate(List<TypeElement> classes) {
+        List<String> statements = new ArrayList<>();
+        for (TypeElement typeElement : classes) {
+            if (typeElement.getKind() != ElementKind.CLASS || !isAccessible(typeElement)) {
+                continue;
+            }
+            if (!addMetadata(statements, typeElement)) {
+                continue;
+            }
+            addConstructor(statements, typeElement);
+            if (hasAnnotation(typeElement, TubingConfiguration.class)) {
+                addProviders(statements, typeElement);
+            }
+        }
+
+        String className = contextPackage.isEmpty() ? CONTEXT_CLASS : contextPackage + "." + CONTEXT_CLASS;
+        try {
+            JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(className, classes.toArray(new Element[0]));
+            try (Writer writer = sourceFile.openWriter()) {
+                writer.write(generateSource(statements));
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write " + className + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * The statements are split over nested classes, a single method or class would exceed the class file limits for large plugins.
+     */
+    private String generateSource(List<String> statements) {
+        StringBuilder source = new StringBuilder();
+        if (!contextPackage.isEmpty()) {
+            source.append("package ").append(contextPackage).append(";\n\n");
+        }
+        source.append("public final class ").append(CONTEXT_CLASS).append(" implements ").append(GeneratedContext.class.getName()).append(" {\n\n")
+            .append("    @Override\n")
+            .append("    public void register(").append(BEANS).append(" beans) {\n");
+        int parts = (statements.size() + STATEMENTS_PER_PART - 1) / STATEMENTS_PER_PART;
+        for (int part = 0; part < parts; part++) {
+            source.append("        Part").append(part).append(".register(beans);\n");
+        }
+        source.append("    }\n");
+
+        for (int part = 0; part < parts; part++) {
+            source.append("\n    @SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("    static final class Part").append(part).append(" {\n")
+                .append("        static void register(").append(BEANS).append(" beans) {\n");
+            for (String statement : statements.subList(part * STATEMENTS_PER_PART, Math.min(statements.size(), (part + 1) * STATEMENTS_PER_PART))) {
+                source.append("            ").append(statement).append('\n');
+            }
+            source.append("        }\n")
+                .append("    }\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * Registers the runtime annotations of the class, returns false when the class has none and so cannot be a bean.
+     * Classes with annotations that cannot be expressed in the generated code keep reading their annotations reflectively.
+     */
+    private boolean addMetadata(List<String> statements, TypeElement typeElement) {
+        List<String> metadata = new ArrayList<>();
+        for (AnnotationMirror annotationMirror : elements.getAllAnnotationMirrors(typeElement)) {
+            TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            Retention retention = annotationType.getAnnotation(Retention.class);
+            if (retention == null || retention.value() != RetentionPolicy.RUNTIME) {
+                continue;
+            }
+            if (!isAccessible(annotationType)) {
+                return true;
+            }
+            Map<? extends ExecutableElement, ? extends AnnotationValue> values = elements.getElementValuesWithDefaults(annotationMirror);
+            Object conditionalOnProperty = getValue(values, "conditionalOnProperty", "");
+            Object priority = getValue(values, "priority", false);
+            Object multiproviderClass = getValue(values, "multiproviderClass", null);
+            Object mainThread = getValue(values, "mainThread", false);
+            Object lazy = getValue(values, "lazy", false);
+            Object async = getValue(values, "async", false);
+            if (!(conditionalOnProperty instanceof String) || !(priority instanceof Boolean) || !(mainThread instanceof Boolean) || !(lazy instanceof Boolean) || !(async instanceof Boolean)
+                || (multiproviderClass != null && !(multiproviderClass instanceof TypeMirror))) {
+                return true;
+            }
+            String multiproviderLiteral = multiproviderClass == null ? "java.lang.Object.class" : getClassLiteral((TypeMirror) multiproviderClass);
+            if (multiproviderLiteral == null) {
+                return true;
+            }
+            metadata.add("beans.annotation(" + getClassName(typeElement) + ", " + annotationType.getQualifiedName() + ".class, "
+                + toStringLiteral((String) conditionalOnProperty) + ", " + priority + ", " + multiproviderLiteral + ", " + mainThread + ", " + lazy + ", " + async + ");");
+
+            if (isType(annotationType, IocMultiProvider.class)) {
+                List<String> multiProviderClasses = new ArrayList<>();
+                for (AnnotationValue value : (List<? extends AnnotationValue>) getValue(values, "value", null)) {
+                    String classLiteral = value.getValue() instanceof TypeMirror ? getClassLiteral((TypeMirror) value.getValue()) : null;
+                    if (classLiteral == null) {
+                        return true;
+                    }
+                    multiProviderClasses.add(classLiteral);
+                }
+                metadata.add("beans.multiProvider(" + getClassName(typeElement) + (multiProviderClasses.isEmpty() ? "" : ", ") + String.join(", ", multiProviderClasses) + ");");
+            } else if (isType(annotationType, ConditionalOnMissingBean.class)) {
+                metadata.add("beans.conditionalOnMissingBean(" + getClassName(typeElement) + ");");
+            }
+        }
+        statements.addAll(metadata);
+        return !metadata.isEmpty();
+    }
+
+    private void addConstructor(List<String> statements, TypeElement typeElement) {
+        if (typeElement.getModifiers().contains(Modifier.ABSTRACT)
+            || (typeElement.getNestingKind().isNested() && !typeElement.getModifiers().contains(Modifier.STATIC))) {
+            return;
+        }
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(typeElement.getEnclosedElements());
+        if (constructors.size() != 1 || !isAccessible(constructors.get(0))) {
+            return;
+        }
+        String invocation = generateInvocation("new " + getSourceName(typeElement), constructors.get(0));
+        if (invocation != null) {
+            statements.add("beans.constructor(" + getClassName(typeElement) + ", params -> " + invocation
+                + ", () -> new " + BEANS + ".Parameter[]{" + generateParameters(constructors.get(0)) + "});");
+        }
+    }
+
+    private void addProviders(List<String> statements, TypeElement typeElement) {
+        for (ExecutableElement method : ElementFilter.methodsIn(typeElement.getEnclosedElements())) {
+            if (!hasAnnotation(method, IocBeanProvider.class) && !hasAnnotation(method, IocMultiProvider.class) && !hasAnnotation(method, AfterIocLoad.class)) {
+                continue;
+            }
+            if (!method.getModifiers().contains(Modifier.STATIC) || !isAccessible(method)) {
+                continue;
+            }
+            String invocation = generateInvocation(getSourceName(typeElement) + "." + method.getSimpleName(), method);
+            if (invocation == null) {
+                continue;
+            }
+            String instantiator = method.getReturnType().getKind() == TypeKind.VOID ? "{ " + invocation + "; return null; }" : invocation;
+            String parameters = generateParameters(method);
+            statements.add("beans.provider(" + getClassLiteral(typeElement.asType()) + ", " + toStringLiteral(method.getSimpleName().toString()) + ", params -> "
+                + instantiator + (parameters.isEmpty() ? "" : ", " + parameters) + ");");
+        }
+    }
+
+    /**
+     * The constructor or method call with every parameter cast from the parameter array, null if the executable cannot be called from generated code.
+     */
+    private String generateInvocation(String target, ExecutableElement executable) {
+        List<String> arguments = new ArrayList<>();
+        List<? extends VariableElement> parameters = executable.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            String classLiteral = getClassLiteral(parameter.asType());
+            if (classLiteral == null || hasAnnotation(parameter, ConfigProperty.class)) {
+                return null;
+            }
+            if (hasAnnotation(parameter, IocMulti.class) && getMultiType(parameter) == null) {
+                return null;
+            }
+            if (isFuture(parameter) && getFutureType(parameter) == null) {
+                return null;
+            }
+            arguments.add("(" + getSourceName(parameter.asType()) + ") params[" + i + "]");
+        }
+        return target + "(" + String.join(", ", arguments) + ")";
+    }
+
+    private String generateParameters(ExecutableElement executable) {
+        List<String> parameters = new ArrayList<>();
+        for (VariableElement parameter : executable.getParameters()) {
+            String classLiteral = getClassLiteral(parameter.asType());
+            if (hasAnnotation(parameter, InjectTubingPlugin.class)) {
+                parameters.add(BEANS + ".tubingPlugin(" + classLiteral + ")");
+            } else if (hasAnnotation(parameter, IocMulti.class)) {
+                parameters.add(BEANS + ".multi(" + classLiteral + ", " + getMultiType(parameter) + ")");
+            } else if (isFuture(parameter)) {
+                parameters.add(BEANS + ".future(" + getFutureType(parameter) + ")");
+            } else if (isConfigInterface(parameter)) {
+                parameters.add(BEANS + ".configInterface(" + classLiteral + ")");
+            } else {
+                parameters.add(BEANS + ".bean(" + classLiteral + ")");
+            }
+        }
+        return String.join(", ", parameters);
+    }
+
+    private boolean isFuture(VariableElement parameter) {
+        TypeMirror type = processingEnv.getTypeUtils().erasure(parameter.asType());
+        return type.getKind() == TypeKind.DECLARED && isType((TypeElement) ((DeclaredType) type).asElement(), IocFuture.class);
+    }
+
+    private boolean isConfigInterface(VariableElement parameter) {
+        return parameter.asType().getKind() == TypeKind.DECLARED && ConfigInterfaceGenerator.isConfigInterface((TypeElement) ((DeclaredType) parameter.asType()).asElement());
+    }
+
+    private String getFutureType(VariableElement parameter) {
+        List<? extends TypeMirror> typeArguments = ((DeclaredType) parameter.asType()).getTypeArguments();
+        if (typeArguments.size() != 1 || typeArguments.get(0).getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return getClassLiteral(typeArguments.get(0));
+    }
+
+    private String getMultiType(VariableElement parameter) {
+        for (AnnotationMirror annotationMirror : parameter.getAnnotationMirrors()) {
+            if (isType((TypeElement) annotationMirror.getAnnotationType().asElement(), IocMulti.class)) {
+                Object value = getValue(elements.getElementValuesWithDefaults(annotationMirror), "value", null);
+                return value instanceof TypeMirror ? getClassLiteral((TypeMirror) value) : null;
+            }
+        }
+        return null;
+    }
+
+    private Object getValue(Map<? extends ExecutableElement, ? extends AnnotationValue> values, String name, Object defaultValue) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Bean classes are referenced by name, a class literal would load every bean class when the context is registered.
+     */
+    private String getClassName(TypeElement typeElement) {
+        return toStringLiteral(elements.getBinaryName(typeElement).toString());
+    }
+
+    private String getClassLiteral(TypeMirror typeMirror) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(typeMirror);
+        return isAccessible(erasure) ? getSourceName(erasure) + ".class" : null;
+    }
+
+    private String getSourceName(TypeMirror typeMirror) {
+        return processingEnv.getTypeUtils().erasure(typeMirror).toString();
+    }
+
+    private String getSourceName(TypeElement typeElement) {
+        return typeElement.getQualifiedName().toString();
+    }
+
+    private boolean isAccessible(TypeMirror typeMirror) {
+        if (typeMirror.getKind().isPrimitive()) {
+            return true;
+        }
+        if (typeMirror.getKind() == TypeKind.ARRAY) {
+            return isAccessible(((ArrayType) typeMirror).getComponentType());
+        }
+        return typeMirror.getKind() == TypeKind.DECLARED && isAccessible((TypeElement) ((DeclaredType) typeMirror).asElement());
+    }
+
+    private boolean isAccessible(Element element) {
+        for (Element current = element; current instanceof TypeElement || current instanceof ExecutableElement; current = current.getEnclosingElement()) {
+            if (current.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!current.getModifiers().contains(Modifier.PUBLIC) && !elements.getPackageOf(current).getQualifiedName().contentEquals(contextPackage)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean hasAnnotation(Element element, Class<?> annotation) {
+        return element.getAnnotationMirrors().stream().anyMatch(a -> isType((TypeElement) a.getAnnotationType().asElement(), annotation));
+    }
+
+    private static boolean isType(TypeElement typeElement, Class<?> aClass) {
+        return typeElement.getQualifiedName().contentEquals(aClass.getCanonicalName());
+    }
+
+    static String toStringLiteral(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    literal.append("\\\"");
+                    break;
+                case '\\':
+                    literal.append("\\\\");
+                    break;
+                case '\n':
+                    literal.append("\\n");
+                    break;
+                case '\r':
+                    literal.append("\\r");
+                    break;
+                case '\t':
+                    literal.append("\\t");
+                    break;
+                default:
+                    literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+}
@@ -0,0 +1,247 @@
+package be.garagepoort.mcioc.profiler;
+
+import be.garagepoort.mcioc.TubingPlugin;
+import be.garagepoort.mcioc.profiler.ProfileEntry.Phase;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Records how long every step of starting the IOC container takes and how much memory it allocates.
+ * <p>
+ * Profiling is enabled with {@code -Dtubing.profile=true}. When enabled the container writes a report with all beans,
+ * their dependencies and the critical path through the dependency graph to {@value #REPORT_FILE} in the plugin data folder.
+ */
+public class ContainerProfiler {
+
+    public static final String PROFILE_PROPERTY = "tubing.profile";
+    public static final String REPORT_FILE = "tubing-profile.txt";
+
+    private final boolean enabled;
+    private final ConcurrentLinkedQueue<ProfileEntry> entries = new ConcurrentLinkedQueue<>();
+    private final Map<String, List<String>> dependencies = new LinkedHashMap<>();
+
+    public ContainerProfiler() {
+        this(isProfilingEnabled());
+    }
+
+    public ContainerProfiler(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static boolean isProfilingEnabled() {
+        return Boolean.getBoolean(PROFILE_PROPERTY);
+    }
+
+    /**
+     * The number of bytes allocated by the current thread so far, or -1 when the JVM does not support measuring it.
+     */
+    public static long getAllocatedBytes() {
+        return getAllocatedBytes(Thread.currentThread());
+    }
+
+    /**
+     * The number of bytes allocated by a live thread so far, or -1 when the JVM does not support measuring it.
+     */
+    public static long getAllocatedBytes(Thread thread) {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                return sunThreadMXBean.getThreadAllocatedBytes(thread.getId());
+            }
+        }
+        return -1;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <T> T profile(String name, Phase phase, Callable<T> action) throws Exception {
+        if (!enabled) {
+            return action.call();
+        }
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+        try {
+            return action.call();
+        } finally {
+            record(name, phase, start, allocatedBefore);
+        }
+    }
+
+    public void profile(String name, Phase phase, Runnable action) {
+        if (!enabled) {
+            action.run();
+            return;
+        }
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            record(name, phase, start, allocatedBefore);
+        }
+    }
+
+    /**
+     * Records a measurement which started at the given {@link System#nanoTime()} and {@link #getAllocatedBytes()}.
+     */
+    public void record(String name, Phase phase, long startNanos, long allocatedBytesBefore) {
+        long allocatedBytes = allocatedBytesBefore < 0 ? -1 : getAllocatedBytes() - allocatedBytesBefore;
+        record(new ProfileEntry(name, phase, System.nanoTime() - startNanos, allocatedBytes));
+    }
+
+    public void record(ProfileEntry profileEntry) {
+        if (enabled) {
+            entries.add(profileEntry);
+        }
+    }
+
+    public synchronized void addDependencies(String name, List<String> beanDependencies) {
+        if (enabled) {
+            dependencies.put(name, new ArrayList<>(beanDependencies));
+        }
+    }
+
+    public List<ProfileEntry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    /**
+     * The total time spent creating the bean itself, not including its dependencies.
+     */
+    public long getBeanNanos(String name) {
+        return entries.stream()
+            .filter(e -> e.getName().equals(name) && isBeanPhase(e.getPhase()))
+            .mapToLong(ProfileEntry::getDurationNanos)
+            .sum();
+    }
+
+    /**
+     * The chain of dependent beans which took the longest to create, starting with the bean created last.
+     */
+    public synchronized List<String> getCriticalPath() {
+        Map<String, Long> beanNanos = new HashMap<>();
+        for (ProfileEntry entry : entries) {
+            if (isBeanPhase(entry.getPhase())) {
+                beanNanos.merge(entry.getName(), entry.getDurationNanos(), Long::sum);
+            }
+        }
+
+        Map<String, Long> pathNanos = new HashMap<>();
+        String slowest = null;
+        for (String name : dependencies.keySet()) {
+            long nanos = getPathNanos(name, beanNanos, pathNanos);
+            if (slowest == null || nanos > pathNanos.get(slowest)) {
+                slowest = name;
+            }
+        }
+
+        List<String> criticalPath = new ArrayList<>();
+        String current = slowest;
+        while (current != null) {
+            criticalPath.add(current);
+            current = dependencies.getOrDefault(current, Collections.emptyList()).stream()
+                .max(Comparator.comparingLong(d -> pathNanos.getOrDefault(d, 0L)))
+                .orElse(null);
+        }
+        return criticalPath;
+    }
+
+    public synchronized String getReport() {
+        StringBuilder report = new StringBuilder("Tubing container profile\n\n");
+
+        Map<Phase, List<ProfileEntry>> entriesByPhase = entries.stream().collect(Collectors.groupingBy(ProfileEntry::getPhase, LinkedHashMap::new, Collectors.toList()));
+        for (Phase phase : Phase.values()) {
+            List<ProfileEntry> phaseEntries = entriesByPhase.getOrDefault(phase, Collections.emptyList());
+            if (phaseEntries.isEmpty() || isBeanPhase(phase)) {
+                continue;
+            }
+            report.append(phase).append('\n');
+            phaseEntries.forEach(e -> report.append("  ").append(e.getName()).append(' ').append(format(e)).append('\n'));
+        }
+
+        List<String> criticalPath = getCriticalPath();
+        report.append("\nBEANS (* = on critical path)\n");
+        for (Map.Entry<String, List<String>> bean : dependencies.entrySet()) {
+            String name = bean.getKey();
+            report.append(criticalPath.contains(name) ? "* " : "  ").append(name);
+            entries.stream()
+                .filter(e -> e.getName().equals(name) && isBeanPhase(e.getPhase()))
+                .forEach(e -> report.append(' ').append(e.getPhase().name().toLowerCase(Locale.ROOT)).append('=').append(format(e)));
+            report.append('\n');
+            bean.getValue().forEach(d -> report.append("      -> ").append(d).append('\n'));
+        }
+
+        report.append("\nCRITICAL PATH ").append(formatNanos(criticalPath.stream().mapToLong(this::getBeanNanos).sum())).append('\n');
+        criticalPath.forEach(name -> report.append("  ").append(name).append(' ').append(formatNanos(getBeanNanos(name))).append('\n'));
+        return report.toString();
+    }
+
+    /**
+     * Writes the report to the plugin data folder and logs the critical path. Does nothing when profiling is disabled.
+     */
+    public void report(TubingPlugin tubingPlugin) {
+        if (!enabled) {
+            return;
+        }
+        File reportFile = new File(tubingPlugin.getDataFolder(), REPORT_FILE);
+        try {
+            Files.createDirectories(reportFile.getParentFile().toPath());
+            Files.write(reportFile.toPath(), getReport().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            tubingPlugin.getLogger().warning("Could not write tubing profile report: " + e.getMessage());
+        }
+        List<String> criticalPath = getCriticalPath();
+        tubingPlugin.getLogger().info("Tubing profile written to " + reportFile.getPath() + ". Critical path ("
+            + formatNanos(criticalPath.stream().mapToLong(this::getBeanNanos).sum()) + "): " + String.join(" <- ", criticalPath));
+    }
+
+    private long getPathNanos(String name, Map<String, Long> beanNanos, Map<String, Long> pathNanos) {
+        Long cached = pathNanos.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        pathNanos.put(name, 0L);
+        long slowestDependency = 0;
+        for (String dependency : dependencies.getOrDefault(name, Collections.emptyList())) {
+            slowestDependency = Math.max(slowestDependency, getPathNanos(dependency, beanNanos, pathNanos));
+        }
+        long nanos = beanNanos.getOrDefault(name, 0L) + slowestDependency;
+        pathNanos.put(name, nanos);
+        return nanos;
+    }
+
+    private static boolean isBeanPhase(Phase phase) {
+        return phase == Phase.CONSTRUCTOR || phase == Phase.CONFIG_INJECTION || phase == Phase.PROVIDER;
+    }
+
+    private static String format(ProfileEntry entry) {
+        if (entry.getAllocatedBytes() < 0) {
+            return formatNanos(entry.getDurationNanos());
+        }
+        return formatNanos(entry.getDurationNanos()) + "/" + (entry.getAllocatedBytes() / 1024) + "KB";
+    }
+
+    private static String formatNanos(long nanos) {
+        return String.format(Locale.ROOT, "%.2fms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
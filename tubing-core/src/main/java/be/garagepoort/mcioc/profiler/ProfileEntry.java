@@ -0,0 +1,53 @@
+package be.garagepoort.mcioc.profiler;
+
+/**
+ * A single measurement taken while starting the IOC container.
+ */
+public class ProfileEntry {
+
+    public enum Phase {
+        CLASS_INDEX,
+        CONFIGURATION_FILE,
+        CONSTRUCTOR,
+        CONFIG_INJECTION,
+        PROVIDER,
+        AFTER_IOC_LOAD,
+        ON_LOAD
+    }
+
+    private final String name;
+    private final Phase phase;
+    private final long durationNanos;
+    private final long allocatedBytes;
+
+    public ProfileEntry(String name, Phase phase, long durationNanos, long allocatedBytes) {
+        this.name = name;
+        this.phase = phase;
+        this.durationNanos = durationNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * The bytes allocated by the measuring thread, or -1 when the JVM does not support measuring allocations.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public ProfileEntry plus(ProfileEntry other) {
+        long allocated = allocatedBytes < 0 || other.allocatedBytes < 0 ? -1 : allocatedBytes + other.allocatedBytes;
+        return new ProfileEntry(name, phase, durationNanos + other.durationNanos, allocated);
+    }
+}
@@ -0,0 +1,44 @@
+package be.garagepoort.mcioc.scope;
+
+import be.garagepoort.mcioc.IocBean;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+/**
+ * Keeps per player state of singleton beans.
+ * <p>
+ * Beans create a {@link PlayerScoped} instead of a {@code Map<UUID, ...>} field. The platform modules call
+ * {@link #release(UUID)} when a player quits or disconnects, which removes the player from every scoped map.
+ * Scoped maps are only weakly referenced, so maps of beans dropped by a reload do not stay registered.
+ */
+@IocBean
+public class PlayerScope {
+
+    private final Set<PlayerScoped<?>> scopedInstances = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    /**
+     * Creates a scoped map which creates the instance of a player with the given factory on first access.
+     */
+    public <T> PlayerScoped<T> create(Function<UUID, T> factory) {
+        PlayerScoped<T> playerScoped = new PlayerScoped<>(factory);
+        scopedInstances.add(playerScoped);
+        return playerScoped;
+    }
+
+    /**
+     * Creates a scoped map which only holds the instances put into it explicitly.
+     */
+    public <T> PlayerScoped<T> create() {
+        return create(null);
+    }
+
+    public void release(UUID playerUuid) {
+        synchronized (scopedInstances) {
+            scopedInstances.forEach(s -> s.release(playerUuid));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package be.garagepoort.mcioc.scope;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Holds one instance per player. Instances are created on first access and released by the {@link PlayerScope}
+ * when the player leaves the server.
+ */
+public class PlayerScoped<T> {
+
+    private final ConcurrentMap<UUID, T> instances = new ConcurrentHashMap<>(16, 0.75f, 1);
+    private final Function<UUID, T> factory;
+    private final Map<UUID, T> mapView = new MapView();
+
+    PlayerScoped(Function<UUID, T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Returns the instance of the player, creating it when the player has none yet.
+     */
+    public T get(UUID playerUuid) {
+        if (factory == null) {
+            return instances.get(playerUuid);
+        }
+        return instances.computeIfAbsent(playerUuid, factory);
+    }
+
+    public Optional<T> find(UUID playerUuid) {
+        return Optional.ofNullable(instances.get(playerUuid));
+    }
+
+    public T getOrDefault(UUID playerUuid, T defaultValue) {
+        return instances.getOrDefault(playerUuid, defaultValue);
+    }
+
+    public boolean contains(UUID playerUuid) {
+        return instances.containsKey(playerUuid);
+    }
+
+    /**
+     * Sets the instance of the player. Putting {@code null} removes the player's instance.
+     */
+    public void put(UUID playerUuid, T instance) {
+        if (instance == null) {
+            instances.remove(playerUuid);
+            return;
+        }
+        instances.put(playerUuid, instance);
+    }
+
+    public Optional<T> remove(UUID playerUuid) {
+        return Optional.ofNullable(instances.remove(playerUuid));
+    }
+
+    public int size() {
+        return instances.size();
+    }
+
+    /**
+     * Returns a live {@link Map} view of the instances, for code which still exposes a {@code Map<UUID, ...>}.
+     * The view does not use the factory and, like {@link #put(UUID, Object)}, putting {@code null} removes the player.
+     */
+    public Map<UUID, T> asMap() {
+        return mapView;
+    }
+
+    void release(UUID playerUuid) {
+        instances.remove(playerUuid);
+    }
+
+    private class MapView extends AbstractMap<UUID, T> {
+
+        @Override
+        public T get(Object key) {
+            return key == null ? null : instances.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key != null && instances.containsKey(key);
+        }
+
+        @Override
+        public T put(UUID key, T value) {
+            return value == null ? instances.remove(key) : instances.put(key, value);
+        }
+
+        @Override
+        public T remove(Object key) {
+            return key == null ? null : instances.remove(key);
+        }
+
+        @Override
+        public int size() {
+            return instances.size();
+        }
+
+        @Override
+        public void clear() {
+            instances.clear();
+        }
+
+        @Override
+        public Set<Entry<UUID, T>> entrySet() {
+            return instances.entrySet();
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.velocitypowered.api.command.CommandManager;
 import com.velocitypowered.api.event.EventManager;
 import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
+import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
 import com.velocitypowered.api.plugin.annotation.DataDirectory;
 import com.velocitypowered.api.proxy.ProxyServer;
 
@@ -41,6 +42,14 @@ public abstract class TubingVelocityPlugin implements TubingPlugin {
         TubingVelocityBeanLoader.load(this);
         enable();
     }
+
+    @Subscribe
+    public void onProxyShutdown(ProxyShutdownEvent event) {
+        if (iocContainer != null) {
+            iocContainer.shutdown();
+        }
+    }
+
     protected abstract void enable();
 
     @Override
@@ -49,18 +58,39 @@ public abstract class TubingVelocityPlugin implements TubingPlugin {
     }
 
     public void reload() {
+        executeBeforeReload();
+        unregisterCommands();
+        this.proxyServer.getEventManager().unregisterListeners(this);
+
+        iocContainer = initIocContainer();
+        TubingVelocityBeanLoader.load(this);
+    }
+
+    /**
+     * Reloads the configuration without rebuilding the whole IOC container.
+     * Only beans affected by configuration changes are recreated, listeners of the beans which are kept stay registered.
+     */
+    public void incrementalReload() {
+        executeBeforeReload();
+        unregisterCommands();
+
+        IocContainer previous = iocContainer;
+        iocContainer = reloadIocContainer(previous);
+        TubingVelocityBeanLoader.reload(this, previous);
+    }
+
+    private void executeBeforeReload() {
         List<BeforeTubingReload> beforeTubingReloads = iocContainer.getList(BeforeTubingReload.class);
         if (beforeTubingReloads != null) {
             beforeTubingReloads.forEach(onLoad -> onLoad.execute(this));
         }
         beforeReload();
+    }
+
+    private void unregisterCommands() {
         for (String alias : this.proxyServer.getCommandManager().getAliases()) {
             this.proxyServer.getCommandManager().unregister(alias);
         }
-        this.proxyServer.getEventManager().unregisterListeners(this);
-
-        iocContainer = initIocContainer();
-        TubingVelocityBeanLoader.load(this);
     }
 
     @Override
@@ -18,4 +18,9 @@ public @interface IocVelocityCommandHandler {
     String value();
 
     String[] aliases() default "";
+
+    /**
+     * Lazy command handlers are registered as a proxy, the handler is created when the command is first used.
+     */
+    boolean lazy() default false;
 }
@@ -1,5 +1,6 @@
 package be.garagepoort.mcioc.tubingvelocity.load;
 
+import be.garagepoort.mcioc.IocContainer;
 import be.garagepoort.mcioc.IocException;
 import be.garagepoort.mcioc.configuration.ConfigurationLoader;
 import be.garagepoort.mcioc.tubingvelocity.TubingVelocityPlugin;
@@ -8,8 +9,11 @@ import be.garagepoort.mcioc.tubingvelocity.annotations.IocVelocityListener;
 import be.garagepoort.mcioc.tubingvelocity.exceptions.TubingVelocityException;
 import com.velocitypowered.api.command.SimpleCommand;
 
+import java.lang.annotation.Annotation;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 public class TubingVelocityBeanLoader {
 
@@ -18,17 +22,26 @@ public class TubingVelocityBeanLoader {
         loadListenerBeans(tubingPlugin);
     }
 
+    /**
+     * Registers the beans of a reloaded container. Listeners which were taken over from the previous container stay registered,
+     * listeners which were recreated or removed are unregistered.
+     */
+    public static void reload(TubingVelocityPlugin tubingPlugin, IocContainer previous) {
+        loadCommandHandlerBeans(tubingPlugin);
+        reloadListenerBeans(tubingPlugin, previous);
+    }
+
     private static void loadCommandHandlerBeans(TubingVelocityPlugin tubingPlugin) {
-        List<Class<?>> typesAnnotatedWith = tubingPlugin.getIocContainer().getReflections().getClassesWithAnnotation(IocVelocityCommandHandler.class).loadClasses();
+        List<Class<?>> typesAnnotatedWith = tubingPlugin.getIocContainer().getClassIndex().getClassesWithAnnotation(IocVelocityCommandHandler.class);
 
         for (Class<?> aClass : typesAnnotatedWith) {
             if (!SimpleCommand.class.isAssignableFrom(aClass)) {
                 throw new IocException("IocVelocityCommandHandler annotation can only be used on SimpleCommand classes");
             }
-            if (tubingPlugin.getIocContainer().get(aClass) == null) {
+            SimpleCommand bean = (SimpleCommand) tubingPlugin.getIocContainer().getLazy(aClass);
+            if (bean == null) {
                 continue;
             }
-            SimpleCommand bean = (SimpleCommand) tubingPlugin.getIocContainer().get(aClass);
             ConfigurationLoader configurationLoader = tubingPlugin.getIocContainer().get(ConfigurationLoader.class);
 
             IocVelocityCommandHandler annotation = aClass.getAnnotation(IocVelocityCommandHandler.class);
@@ -48,8 +61,26 @@ public class TubingVelocityBeanLoader {
         return value;
     }
 
+    private static void reloadListenerBeans(TubingVelocityPlugin tubingPlugin, IocContainer previous) {
+        Set<Class<?>> typesAnnotatedWith = getReloadedClasses(tubingPlugin, previous, IocVelocityListener.class);
+
+        for (Class<?> aClass : typesAnnotatedWith) {
+            Object previousBean = previous.get(aClass);
+            Object bean = tubingPlugin.getIocContainer().get(aClass);
+            if (previousBean == bean) {
+                continue;
+            }
+            if (previousBean != null) {
+                tubingPlugin.getEventManager().unregisterListener(tubingPlugin, previousBean);
+            }
+            if (bean != null) {
+                tubingPlugin.getEventManager().register(tubingPlugin, bean);
+            }
+        }
+    }
+
     private static void loadListenerBeans(TubingVelocityPlugin tubingPlugin) {
-        List<Class<?>> typesAnnotatedWith = tubingPlugin.getIocContainer().getReflections().getClassesWithAnnotation(IocVelocityListener.class).loadClasses();
+        List<Class<?>> typesAnnotatedWith = tubingPlugin.getIocContainer().getClassIndex().getClassesWithAnnotation(IocVelocityListener.class);
 
         for (Class<?> aClass : typesAnnotatedWith) {
             if (tubingPlugin.getIocContainer().get(aClass) == null) {
@@ -59,4 +90,13 @@ public class TubingVelocityBeanLoader {
             tubingPlugin.getEventManager().register(tubingPlugin, bean);
         }
     }
+
+    /**
+     * The classes of both containers, beans which got disabled by their conditionalOnProperty are only part of the previous one.
+     */
+    private static Set<Class<?>> getReloadedClasses(TubingVelocityPlugin tubingPlugin, IocContainer previous, Class<? extends Annotation> annotation) {
+        Set<Class<?>> classes = new LinkedHashSet<>(previous.getClassIndex().getClassesWithAnnotation(annotation));
+        classes.addAll(tubingPlugin.getIocContainer().getClassIndex().getClassesWithAnnotation(annotation));
+        return classes;
+    }
 }
@@ -0,0 +1,22 @@
+package be.garagepoort.mcioc.tubingvelocity.scope;
+
+import be.garagepoort.mcioc.scope.PlayerScope;
+import be.garagepoort.mcioc.tubingvelocity.annotations.IocVelocityListener;
+import com.velocitypowered.api.event.PostOrder;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
+
+@IocVelocityListener
+public class PlayerScopeListener {
+
+    private final PlayerScope playerScope;
+
+    public PlayerScopeListener(PlayerScope playerScope) {
+        this.playerScope = playerScope;
+    }
+
+    @Subscribe(order = PostOrder.LAST)
+    public void onDisconnect(DisconnectEvent event) {
+        playerScope.release(event.getPlayer().getUniqueId());
+    }
+}